@@ -0,0 +1,369 @@
+package Controller;
+
+/**
+ * The state of an elevator as last published by its controller: where it is,
+ * where it is going, the stops it has, the state of its door, how long it
+ * stays on its floor for the door and its load.
+ * Immutable, so the main controller reads it without locking while the
+ * elevator controller goes on changing its own state (see Monitor.publish).
+ * The sequence number grows by one with every status the elevator publishes.
+ *
+ * A decision is made on one status per elevator, taken together with
+ * Monitor.getStatus(Monitor[], CarStatus[]), so all that is known of an
+ * elevator during the decision comes from the same moment.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public final class CarStatus {
+	/**
+	 * States of the door
+	 */
+	public static final int CLOSED = 0, OPENING = 1, OPEN = 2, CLOSING = 3;
+
+	private final long sequence, dwell;
+	private final double position;
+	private final int floor, direction, destination, stoppedOnFloor,
+			parkingFloor, door, load;
+	private final boolean stopButtonPressed;
+	private final StopSet stops;
+	/*
+	 * destinations of the riders waiting on each floor, null where there are
+	 * none
+	 */
+	private final StopSet[] riders;
+
+	CarStatus(long sequence, int floor, double position, int direction,
+			int destination, int stoppedOnFloor, int parkingFloor, int door,
+			long dwell, boolean stopButtonPressed, StopSet stops,
+			StopSet[] riders) {
+		this.sequence = sequence;
+		this.floor = floor;
+		this.position = position;
+		this.direction = direction;
+		this.destination = destination;
+		this.stoppedOnFloor = stoppedOnFloor;
+		this.parkingFloor = parkingFloor;
+		this.door = door;
+		this.dwell = dwell;
+		this.stopButtonPressed = stopButtonPressed;
+		this.stops = new StopSet(stops);
+		load = stops.count(0, Integer.MAX_VALUE, StopSet.CAR);
+		this.riders = new StopSet[riders.length];
+		for (int f = 0; f < riders.length; f++) {
+			if (riders[f] != null && !riders[f].isEmpty()) {
+				this.riders[f] = new StopSet(riders[f]);
+			}
+		}
+	}
+
+	/**
+	 * Creates a status with other stops, which are not copied
+	 */
+	private CarStatus(CarStatus status, StopSet stops, StopSet[] riders) {
+		sequence = status.sequence;
+		floor = status.floor;
+		position = status.position;
+		direction = status.direction;
+		destination = status.destination;
+		stoppedOnFloor = status.stoppedOnFloor;
+		parkingFloor = -1;
+		door = status.door;
+		dwell = status.dwell;
+		load = status.load;
+		stopButtonPressed = status.stopButtonPressed;
+		this.stops = stops;
+		this.riders = riders;
+	}
+
+	/**
+	 * Gets the status the elevator will have once it has taken a hall call
+	 * given to it, so a decision can take into account the calls already
+	 * given out before the elevator has published them. The status itself is
+	 * not changed.
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return the status, this one if the elevator already has the stop
+	 */
+	public CarStatus withStop(int floor, int direction) {
+		if (stops.contains(floor, direction)) {
+			return this;
+		}
+		StopSet next = new StopSet(stops);
+		next.add(floor, direction);
+		return new CarStatus(this, next, riders);
+	}
+
+	/**
+	 * Gets the status the elevator will have once it has taken a destination
+	 * call given to it, see withStop
+	 *
+	 * @param floor
+	 * @param destination
+	 * @return the status, this one if the elevator already has the call
+	 */
+	public CarStatus withDestinationCall(int floor, int destination) {
+		if (newStops(floor, destination) == 0) {
+			return this;
+		}
+		StopSet next = new StopSet(stops);
+		next.add(floor, (destination > floor) ? 1 : -1);
+		StopSet[] waiting = java.util.Arrays.copyOf(riders, Math.max(
+				riders.length, floor + 1));
+		waiting[floor] = (waiting[floor] == null) ? new StopSet()
+				: new StopSet(waiting[floor]);
+		waiting[floor].add(destination, 0);
+		return new CarStatus(this, next, waiting);
+	}
+
+	/**
+	 * Gets the sequence number of the status
+	 *
+	 * @return sequence, 1 for the first status of the elevator
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Gets the floor the elevator has last reached or passed
+	 *
+	 * @return floor
+	 */
+	public int getFloor() {
+		return floor;
+	}
+
+	/**
+	 * Gets the position of the cabin when the status was published
+	 *
+	 * @return position in floor units, e.g. 2.5 half way between the floors 2
+	 *         and 3
+	 */
+	public double getPosition() {
+		return position;
+	}
+
+	/**
+	 * Gets the direction of the elevator -1 = down 0 = no direction 1 = up
+	 *
+	 * @return direction
+	 */
+	public int getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Gets the floor the elevator is going to
+	 *
+	 * @return floor, -1 if none
+	 */
+	public int getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the floor where the elevator is stopped
+	 *
+	 * @return -1 if the elevator is moving
+	 */
+	public int getStoppedOnFloor() {
+		return stoppedOnFloor;
+	}
+
+	/**
+	 * Gets the floor the elevator has been sent to park at
+	 *
+	 * @return floor, -1 if not parking
+	 */
+	public int getParkingFloor() {
+		return parkingFloor;
+	}
+
+	/**
+	 * Gets the state of the door
+	 *
+	 * @return CLOSED, OPENING, OPEN or CLOSING
+	 */
+	public int getDoor() {
+		return door;
+	}
+
+	/**
+	 * Gets the time the door keeps the elevator on its floor, from when the
+	 * status was published: the dwell time left if the door is open or
+	 * opening
+	 *
+	 * @return time in milliseconds, 0 if the door is closed or closing
+	 */
+	public long getDwell() {
+		return dwell;
+	}
+
+	/**
+	 * Gets the load of the elevator: the number of floors the riders on board
+	 * have asked for (car calls). The simulator has no load weighing, so this
+	 * stands in for the number of riders.
+	 *
+	 * @return load
+	 */
+	public int getLoad() {
+		return load;
+	}
+
+	/**
+	 * Checks if the stop button is pressed
+	 *
+	 * @return boolean
+	 */
+	public boolean isStopButtonPressed() {
+		return stopButtonPressed;
+	}
+
+	/**
+	 * Gets the number of stops
+	 *
+	 * @return size
+	 */
+	public int getSizeOfListOfTasks() {
+		return stops.size();
+	}
+
+	/**
+	 * Checks if the elevator has the stop
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up, 0 = no direction (car call), -1 = down
+	 * @return boolean
+	 */
+	public boolean hasStop(int floor, int direction) {
+		return stops.contains(floor, direction);
+	}
+
+	/**
+	 * Checks if the elevator is idle: stopped on a floor with no tasks, not
+	 * stopped by the stop button and not parking
+	 *
+	 * @return boolean
+	 */
+	public boolean isIdle() {
+		return direction == 0 && stops.isEmpty() && stoppedOnFloor >= 0
+				&& !stopButtonPressed && parkingFloor < 0;
+	}
+
+	/**
+	 * Gets the number of new stops the elevator would make for a destination
+	 * call. Riders going from the same floor to the same destination as riders
+	 * already given to the elevator add no stops.
+	 *
+	 * @param floor
+	 * @param destination
+	 * @return 0, 1 or 2
+	 */
+	public int newStops(int floor, int destination) {
+		int n = 0;
+		if (!stops.contains(floor, (destination > floor) ? 1 : -1)) {
+			n++;
+		}
+		if (!stops.contains(destination, 0)
+				&& !(floor < riders.length && riders[floor] != null && riders[floor]
+						.contains(destination, 0))) {
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Estimates the time until the elevator would serve a hall call, following
+	 * the SCAN (LOOK) order of StopSet.nextStop: straight there if the call is
+	 * ahead and served on the way, otherwise after turning at the farthest
+	 * stop ahead (and at the farthest stop behind if the call goes the same
+	 * way but is behind). The travel is measured from the position of the
+	 * cabin, and an elevator whose door is open or opening first waits out
+	 * the dwell time left. Every floor with a stop on the way costs the stop
+	 * time.
+	 *
+	 * @param call
+	 *            The floor of the call
+	 * @param callDirection
+	 *            1 = up -1 = down
+	 * @param floorTime
+	 *            The time to travel one floor
+	 * @param stopTime
+	 *            The time lost by stopping on a floor
+	 * @return time
+	 */
+	public double estimate(int call, int callDirection, double floorTime,
+			double stopTime) {
+		double hold = (door == CLOSED) ? 0 : dwell;
+		int d = direction;
+		if (d == 0) {
+			int next = stops.nextStop(floor, 0);
+			if (next < 0 || next == floor) {
+				return hold + Math.abs(call - position) * floorTime
+						+ ((next == floor && call != floor) ? stopTime : 0);
+			}
+			d = (next > floor) ? 1 : -1;
+		}
+		int turn = farthest(d);
+		double distance;
+		int stopsOnTheWay;
+		if (((call - floor) * d > 0 || (call == floor && stoppedOnFloor == floor))
+				&& (callDirection == d || (call - turn) * d >= 0)) {
+			/*
+			 * ahead, served on the way
+			 */
+			distance = Math.abs(call - position);
+			stopsOnTheWay = stopsBetween(floor, call, StopSet.ANY);
+		} else if (callDirection != d) {
+			/*
+			 * served on the way back
+			 */
+			distance = Math.abs(turn - position) + Math.abs(turn - call);
+			stopsOnTheWay = stopsBetween(floor, turn + d, StopSet.ANY)
+					+ stopsBetween(turn, call, StopSet.kindOf(-d));
+		} else {
+			/*
+			 * behind, served after turning twice
+			 */
+			int back = farthest(-d);
+			if ((call - back) * d < 0) {
+				back = call;
+			}
+			distance = Math.abs(turn - position) + Math.abs(turn - back)
+					+ Math.abs(call - back);
+			stopsOnTheWay = stops.size();
+		}
+		return hold + distance * floorTime + stopsOnTheWay * stopTime;
+	}
+
+	/**
+	 * Gets the number of floors with stops of the given kinds strictly between
+	 * the given floors
+	 */
+	private int stopsBetween(int a, int b, int kinds) {
+		if (Math.abs(b - a) < 2) {
+			return 0;
+		}
+		return stops.count(Math.min(a, b) + 1, Math.max(a, b) - 1, kinds);
+	}
+
+	/**
+	 * Gets the farthest floor the elevator goes to in the given direction
+	 * before it turns
+	 */
+	private int farthest(int direction) {
+		int far = (direction > 0) ? stops.lower(Integer.MAX_VALUE,
+				StopSet.ANY) : stops.higher(-1, StopSet.ANY);
+		if (far < 0 || (far - floor) * direction < 0) {
+			far = floor;
+		}
+		if (destination >= 0 && (destination - far) * direction > 0) {
+			far = destination;
+		}
+		return far;
+	}
+}
@@ -0,0 +1,144 @@
+package Controller;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import elevator.rmi.CommandBatch;
+import elevator.rmi.Elevators;
+import elevator.rmi.IllegalParamException;
+
+/**
+ * Sends the commands of the elevator controllers to the simulator. A
+ * controller only queues its commands and goes on, so its run never waits on
+ * a remote call. The sender takes all commands queued meanwhile and submits
+ * them as one batch (see Elevators.submit), which the simulator applies at its
+ * next time step, so one remote call carries the commands of all elevators.
+ * The commands keep the order they were queued in, so the commands of one
+ * elevator are applied in the order the controller gave them.
+ *
+ * A batch with an illegal command is rejected as a whole, so the commands of
+ * a rejected batch are sent again one by one and only the illegal one is
+ * dropped. A batch that fails to be sent is logged and dropped, as a failed
+ * call would be.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class CommandSender extends Thread {
+	private Elevators elevators;
+	private LinkedBlockingQueue<int[]> queue = new LinkedBlockingQueue<int[]>();
+	private ArrayList<int[]> commands = new ArrayList<int[]>();
+	private CommandBatch batch = new CommandBatch();
+
+	/**
+	 * Creates a sender, a daemon thread to be started
+	 *
+	 * @param elevators
+	 *            The elevators of the simulator
+	 */
+	public CommandSender(Elevators elevators) {
+		super("CommandSender");
+		this.elevators = elevators;
+		setDaemon(true);
+	}
+
+	/**
+	 * Queues a command to go to a floor
+	 *
+	 * @param number
+	 *            The number of the elevator
+	 * @param floor
+	 *            The floor
+	 */
+	public void goTo(int number, int floor) {
+		queue.add(new int[] { CommandBatch.GOTO, number, floor });
+	}
+
+	/**
+	 * Queues a command to open or close the door
+	 *
+	 * @param number
+	 *            The number of the elevator
+	 * @param direction
+	 *            Elevators.OPEN or Elevators.CLOSE
+	 */
+	public void door(int number, int direction) {
+		queue.add(new int[] { CommandBatch.DOOR, number, direction });
+	}
+
+	/**
+	 * Queues a command to the motor
+	 *
+	 * @param number
+	 *            The number of the elevator
+	 * @param direction
+	 *            Elevators.UP, Elevators.DOWN or Elevators.STOP
+	 */
+	public void motor(int number, int direction) {
+		queue.add(new int[] { CommandBatch.MOTOR, number, direction });
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				commands.add(queue.take());
+				queue.drainTo(commands, CommandBatch.MAX_SIZE - 1);
+				if (!send(0, commands.size())) {
+					for (int i = 0; i < commands.size(); i++) {
+						if (!send(i, i + 1)) {
+							int[] command = commands.get(i);
+							System.err.println("Illegal command " + command[0]
+									+ " " + command[1] + " " + command[2]);
+						}
+					}
+				}
+				commands.clear();
+			}
+		} catch (InterruptedException e) {
+			/*
+			 * stop sending
+			 */
+		}
+	}
+
+	/**
+	 * Submits a range of the taken commands as one batch
+	 *
+	 * @param from
+	 *            The index of the first command
+	 * @param to
+	 *            The index after the last command
+	 * @return false if the batch has been rejected for an illegal command
+	 */
+	private boolean send(int from, int to) {
+		batch.clear();
+		for (int i = from; i < to; i++) {
+			int[] command = commands.get(i);
+			switch (command[0]) {
+			case CommandBatch.GOTO:
+				batch.goTo(command[1], command[2]);
+				break;
+			case CommandBatch.DOOR:
+				batch.door(command[1], command[2]);
+				break;
+			default:
+				batch.motor(command[1], command[2]);
+			}
+		}
+		try {
+			elevators.submit(batch);
+		} catch (RemoteException e) {
+			/*
+			 * thrown as is locally, wrapped in a ServerException remotely
+			 */
+			if (e instanceof IllegalParamException
+					|| e.getCause() instanceof IllegalParamException) {
+				return false;
+			}
+			e.printStackTrace();
+		}
+		return true;
+	}
+}
@@ -0,0 +1,129 @@
+package Controller;
+
+/**
+ * Chooses the elevator for a hall call by estimated time to serve it. The
+ * estimate of each elevator (see CarStatus.estimate) is made from the status
+ * given by the caller, so choosing takes one pass over the elevators and no
+ * remote calls. The costs of the last choice are kept for tuning.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class CostDispatcher implements DispatchStrategy {
+	/**
+	 * The default time lost by a stop (braking, doors, dwell, starting) in
+	 * floor travel times
+	 */
+	public static final double STOP_COST = 2.0;
+
+	protected double floorTime;
+	protected double stopCost = STOP_COST;
+	protected double[] costs = new double[0];
+
+	/**
+	 * Creates a dispatcher
+	 *
+	 * @param velocity
+	 *            The velocity of the elevators in floor units per millisecond
+	 */
+	public CostDispatcher(double velocity) {
+		setVelocity(velocity);
+	}
+
+	/**
+	 * Sets the velocity of the elevators
+	 *
+	 * @param velocity
+	 *            in floor units per millisecond
+	 */
+	@Override
+	public synchronized void setVelocity(double velocity) {
+		floorTime = (velocity > 0) ? 1 / velocity : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the time to travel one floor
+	 *
+	 * @return time in milliseconds
+	 */
+	public synchronized double getFloorTime() {
+		return floorTime;
+	}
+
+	/**
+	 * Sets the time lost by a stop
+	 *
+	 * @param stopCost
+	 *            in floor travel times
+	 */
+	public synchronized void setStopCost(double stopCost) {
+		this.stopCost = stopCost;
+	}
+
+	/**
+	 * Chooses the elevator that is estimated to serve the call first
+	 *
+	 * @param fleet
+	 *            The status of the elevators, indexed from 1
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return the number of the elevator
+	 */
+	@Override
+	public synchronized int dispatch(CarStatus[] fleet, int floor,
+			int direction) {
+		if (costs.length != fleet.length) {
+			costs = new double[fleet.length];
+		}
+		int best = 1;
+		for (int i = 1; i < fleet.length; i++) {
+			costs[i] = cost(fleet[i], floor, direction);
+			if (costs[i] < costs[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Estimates the time until an elevator would serve a hall call
+	 *
+	 * @param status
+	 *            The status of the elevator
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return time in milliseconds
+	 */
+	public synchronized double cost(CarStatus status, int floor, int direction) {
+		return status.estimate(floor, direction, floorTime, stopCost
+				* floorTime);
+	}
+
+	/**
+	 * Gets the costs of the last choice
+	 *
+	 * @return estimated times in milliseconds, indexed by elevator from 1
+	 */
+	public synchronized double[] getCosts() {
+		return costs.clone();
+	}
+
+	/**
+	 * Formats the costs of the last choice
+	 *
+	 * @return String e.g. "1:1500 2:3000"
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 1; i < costs.length; i++) {
+			builder.append(i).append(':').append(Math.round(costs[i]));
+			if (i < costs.length - 1) {
+				builder.append(' ');
+			}
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,231 @@
+package Controller;
+
+/**
+ * Online estimator of the traffic demand per floor and direction, fed with
+ * every hall call. Keeps, in primitive arrays of constant size:
+ *
+ * - the current arrival rate of calls per floor and direction, decayed
+ * exponentially with the time constant TAU,
+ *
+ * - a daily profile: the mean rate per floor and direction in each
+ * time-of-day bucket, updated at the end of the bucket with the weight ALPHA
+ * for the latest day.
+ *
+ * From the current rates it detects the traffic mode: up-peak (most calls go
+ * up from the lobby), down-peak (most calls go down), interfloor, or idle.
+ *
+ * Rates are in calls per simulated millisecond, times in simulated
+ * milliseconds since the start of the simulation.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class DemandEstimator {
+	/**
+	 * Traffic modes
+	 */
+	public static final int IDLE = 0, INTERFLOOR = 1, UP_PEAK = 2,
+			DOWN_PEAK = 3;
+	/**
+	 * Names of the traffic modes
+	 */
+	public static final String[] MODES = { "idle", "interfloor", "up-peak",
+			"down-peak" };
+	/**
+	 * The time constant of the current rates
+	 */
+	public static final double TAU = 300000;
+	/**
+	 * The weight of the latest day in the daily profile
+	 */
+	public static final double ALPHA = 0.3;
+	/**
+	 * The length of a day and of a time-of-day bucket
+	 */
+	public static final long DAY = 24 * 3600000L, BUCKET = 3600000L;
+	/**
+	 * The least total rate, in calls per hour, that is not idle
+	 */
+	public static final double IDLE_RATE = 6;
+	/**
+	 * The least share of the calls going up from the lobby in up-peak, and
+	 * of the calls going down in down-peak
+	 */
+	public static final double UP_PEAK_SHARE = 0.5, DOWN_PEAK_SHARE = 0.7;
+
+	private int floors;
+	private long startOfDay;
+	/*
+	 * indexed by 2 * floor + (up ? 0 : 1)
+	 */
+	private double[] rate, count;
+	private long[] updated;
+	/*
+	 * indexed by bucket * 2 * floors + 2 * floor + (up ? 0 : 1)
+	 */
+	private double[] profile;
+	private boolean[] learned;
+	private long bucketStart = -1;
+	private int bucket;
+
+	/**
+	 * Creates an estimator with no history
+	 *
+	 * @param floors
+	 *            The number of floors
+	 * @param startOfDay
+	 *            The time of day at the start of the simulation in
+	 *            milliseconds since midnight
+	 */
+	public DemandEstimator(int floors, long startOfDay) {
+		this.floors = floors;
+		this.startOfDay = startOfDay;
+		rate = new double[2 * floors];
+		count = new double[2 * floors];
+		updated = new long[2 * floors];
+		int buckets = (int) (DAY / BUCKET);
+		profile = new double[buckets * 2 * floors];
+		learned = new boolean[buckets];
+	}
+
+	private static int cell(int floor, int direction) {
+		return 2 * floor + ((direction > 0) ? 0 : 1);
+	}
+
+	/**
+	 * Gets the time-of-day bucket of a time
+	 *
+	 * @param now
+	 * @return bucket, 0 = from midnight to 1 am
+	 */
+	public int bucketOf(long now) {
+		return (int) (((startOfDay + now) % DAY) / BUCKET);
+	}
+
+	/**
+	 * Records a hall call
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param now
+	 */
+	public synchronized void record(int floor, int direction, long now) {
+		if (floor < 0 || floor >= floors) {
+			return;
+		}
+		roll(now);
+		int c = cell(floor, direction);
+		rate[c] = decayed(c, now) + 1 / TAU;
+		updated[c] = now;
+		count[c]++;
+	}
+
+	/**
+	 * Folds the counts of the bucket that has ended into the daily profile
+	 */
+	private void roll(long now) {
+		if (bucketStart >= 0 && now - bucketStart < BUCKET) {
+			return;
+		}
+		if (bucketStart >= 0) {
+			int base = bucket * 2 * floors;
+			double a = learned[bucket] ? ALPHA : 1;
+			for (int c = 0; c < count.length; c++) {
+				profile[base + c] = a * count[c] / BUCKET + (1 - a)
+						* profile[base + c];
+				count[c] = 0;
+			}
+			learned[bucket] = true;
+		}
+		bucket = bucketOf(now);
+		bucketStart = now - (startOfDay + now) % BUCKET;
+	}
+
+	private double decayed(int c, long now) {
+		return rate[c] * Math.exp(-(now - updated[c]) / TAU);
+	}
+
+	/**
+	 * Gets the current rate of calls
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param now
+	 * @return calls per millisecond
+	 */
+	public synchronized double rate(int floor, int direction, long now) {
+		return decayed(cell(floor, direction), now);
+	}
+
+	/**
+	 * Gets the rate of calls expected at this time of day from the daily
+	 * profile
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param now
+	 * @return calls per millisecond, -1 if there is no profile for this time
+	 *         of day yet
+	 */
+	public synchronized double expectedRate(int floor, int direction, long now) {
+		int b = bucketOf(now);
+		if (!learned[b]) {
+			return -1;
+		}
+		return profile[b * 2 * floors + cell(floor, direction)];
+	}
+
+	/**
+	 * Gets the demand on a floor: the current rate of calls in both
+	 * directions, averaged with the expected rate when there is a profile
+	 *
+	 * @param floor
+	 * @param now
+	 * @return calls per millisecond
+	 */
+	public synchronized double demand(int floor, long now) {
+		double d = 0;
+		for (int direction = -1; direction <= 1; direction += 2) {
+			double current = decayed(cell(floor, direction), now);
+			double expected = expectedRate(floor, direction, now);
+			d += (expected < 0) ? current : (current + expected) / 2;
+		}
+		return d;
+	}
+
+	/**
+	 * Gets the current traffic mode
+	 *
+	 * @param now
+	 * @return IDLE, INTERFLOOR, UP_PEAK or DOWN_PEAK
+	 */
+	public synchronized int mode(long now) {
+		double total = 0, down = 0;
+		for (int f = 0; f < floors; f++) {
+			total += decayed(cell(f, 1), now);
+			double d = decayed(cell(f, -1), now);
+			total += d;
+			down += d;
+		}
+		if (total * 3600000 < IDLE_RATE) {
+			return IDLE;
+		} else if (decayed(cell(0, 1), now) >= UP_PEAK_SHARE * total) {
+			return UP_PEAK;
+		} else if (down >= DOWN_PEAK_SHARE * total) {
+			return DOWN_PEAK;
+		}
+		return INTERFLOOR;
+	}
+
+	/**
+	 * Gets the number of floors
+	 *
+	 * @return floors
+	 */
+	public int getFloors() {
+		return floors;
+	}
+}
@@ -0,0 +1,53 @@
+package Controller;
+
+/**
+ * Chooses the elevator for a destination call (destination dispatch mode, the
+ * hall call names the floor to go to). The cost of an elevator is its
+ * estimated time to serve the floor of the call (see CostDispatcher) plus the
+ * stop cost of every new stop the call adds, so riders going from the same
+ * floor to the same destination are grouped into the same elevator.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public class DestinationDispatcher extends CostDispatcher {
+
+	/**
+	 * Creates a dispatcher
+	 * 
+	 * @param velocity
+	 *            The velocity of the elevators in floor units per millisecond
+	 */
+	public DestinationDispatcher(double velocity) {
+		super(velocity);
+	}
+
+	/**
+	 * Chooses the elevator for a destination call
+	 * 
+	 * @param fleet
+	 *            The status of the elevators, indexed from 1
+	 * @param floor
+	 *            The floor of the call
+	 * @param destination
+	 *            The floor to go to
+	 * @return the number of the elevator
+	 */
+	public synchronized int dispatchTo(CarStatus[] fleet, int floor,
+			int destination) {
+		int direction = (destination > floor) ? 1 : -1;
+		if (costs.length != fleet.length) {
+			costs = new double[fleet.length];
+		}
+		int best = 1;
+		for (int i = 1; i < fleet.length; i++) {
+			costs[i] = cost(fleet[i], floor, direction)
+					+ fleet[i].newStops(floor, destination) * stopCost
+					* floorTime;
+			if (costs[i] < costs[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+}
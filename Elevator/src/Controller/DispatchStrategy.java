@@ -0,0 +1,34 @@
+package Controller;
+
+/**
+ * Policy that chooses the elevator for a hall call. The main controller
+ * delegates every new hall call to the strategy chosen at startup (see
+ * MainController.makeStrategy), so policies can be swapped and compared under
+ * the same traffic.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public interface DispatchStrategy {
+	/**
+	 * Chooses the elevator for a hall call
+	 * 
+	 * @param fleet
+	 *            The status of the elevators, indexed from 1, with the stops
+	 *            given to them since it was read (see CarStatus.withStop)
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return the number of the elevator
+	 */
+	public int dispatch(CarStatus[] fleet, int floor, int direction);
+
+	/**
+	 * Sets the velocity of the elevators, ignored by strategies that do not
+	 * estimate times
+	 * 
+	 * @param velocity
+	 *            in floor units per millisecond
+	 */
+	public void setVelocity(double velocity);
+}
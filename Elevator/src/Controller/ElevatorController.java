@@ -5,159 +5,412 @@ import java.awt.event.ActionListener;
 import java.net.MalformedURLException;
 import java.rmi.*;
 import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import elevator.rmi.*;
 
 /**
- * Controller that handles the movement of each elevator
- * 
+ * Controller that handles the movement of each elevator.
+ *
+ * The controller is a state machine driven by events: new tasks from the
+ * mailbox of the monitor and events from the simulator (the cabin has arrived
+ * at or is passing a floor, the door is completely open or closed). Events are
+ * posted to the monitor by the listeners and handled one at a time. The
+ * controller has no thread of its own: a posted event schedules a run on a
+ * scheduler shared by all elevators, which handles the queued events and
+ * returns, and the dwell time of the door is a delayed task on the same
+ * scheduler. So a few threads drive any number of elevators, and nothing runs
+ * while nothing happens.
+ * A run makes no remote calls: the commands to the simulator (go to, open,
+ * close, stop) are queued to the command sender, which submits them in
+ * batches, and the position of the cabin is followed from the arrival and
+ * passing events, so a run never waits on the simulator and the scheduler
+ * needs no more threads than processors.
+ * Only the controller touches the state in the monitor, so it takes no locks;
+ * it publishes a copy for the main controller at the end of each run.
+ * An idle elevator may be sent to a parking floor by the main controller (see
+ * ParkingPolicy); a new task cancels the parking at once.
+ *
  * @author Ivan Pedersen, Alfred Andersson
- * 
+ *
  */
 public class ElevatorController implements ActionListener, Runnable {
+	/*
+	 * states of the elevator
+	 */
+	static final int IDLE = 0, MOVING = 1, OPENING = 2, OPEN = 3, CLOSING = 4;
+	/*
+	 * the time the door stays open, and the time it is kept open longer for a
+	 * new request for the floor, in simulated milliseconds
+	 */
+	static final long DWELL = 2000, REOPEN_DWELL = 1500;
+
 	Monitor monitor;
-	Elevator elevator;
-	ArrayList<Task> list = new ArrayList<Task>();
+	ScheduledExecutorService scheduler;
+	AtomicBoolean scheduled = new AtomicBoolean(false);
+	volatile boolean started = false;
+	CommandSender sender;
+	Clock clock;
 	int id;
-	double destinationFloor = 0, requestedFloor, time;
-
-	public ElevatorController(Monitor monitor, int id) {
+	int state = IDLE;
+	/*
+	 * the floor the cabin has last reached or passed, whether it stands there,
+	 * and the floor it is going to
+	 */
+	int floor = 0, destinationFloor = -1;
+	boolean onFloor = true;
+	boolean parking = false;
+	long closeAt;
+	/*
+	 * where the cabin has last been known to be, and when it has started or
+	 * passed a floor since; the position while moving is extrapolated from
+	 * there with the velocity, which is written by the velocity listener
+	 */
+	double position = 0;
+	long movedAt;
+	volatile double velocity;
+
+	public ElevatorController(Monitor monitor, int id,
+			ScheduledExecutorService scheduler, CommandSender sender) {
 		this.monitor = monitor;
 		this.id = id;
+		this.scheduler = scheduler;
+		this.sender = sender;
+		monitor.setWakeup(new Runnable() {
+			@Override
+			public void run() {
+				wake();
+			}
+		});
+	}
+
+	/**
+	 * Connects the controller to the simulator and starts handling events
+	 * 
+	 * @throws RemoteException
+	 * @throws MalformedURLException
+	 * @throws NotBoundException
+	 */
+	public void start() throws RemoteException, MalformedURLException,
+			NotBoundException {
+		MakeAll.addInsideListener(id, this);
+		MakeAll.addVelocityListener(this);
+		MakeAll.addArrivalListener(id, this);
+		MakeAll.addDoorListener(id, this);
+		clock = MakeAll.getClock();
+
+		velocity = MakeAll.getVelocity();
+		position = MakeAll.getCachedElevator(id).whereIs();
+		floor = (int) Math.round(position);
+		onFloor = position == floor;
+		monitor.setIdle(floor);
+		monitor.setPosition(position);
+		monitor.publish();
+		started = true;
+		wake();
 	}
 
+	/**
+	 * Schedules a run to handle the queued events, unless one is scheduled
+	 * already
+	 */
+	protected void wake() {
+		if (started && scheduled.compareAndSet(false, true)) {
+			scheduler.execute(this);
+		}
+	}
+
+	/**
+	 * Handles the queued events, run by the scheduler. An event that fails is
+	 * logged and dropped, and the run goes on with the next one.
+	 */
 	@Override
 	public void run() {
 		try {
-			MakeAll.addInsideListener(id, this);
-			MakeAll.addVelocityListener(this);
-			elevator = MakeAll.getElevator(id);
-
-			time = MakeAll.getVelocity() * 10000;
-
 			while (true) {
-
-				list = monitor.getTasks((int) destinationFloor);
-
-				for (int i = 1; i < list.size(); i++) {
-					if (monitor.getDirection() == 1
-							&& list.get(i).getFloor() > elevator.whereIs()
-							&& list.get(i).getDirection() >= 0) {
-
-						destinationFloor = list.get(i).getFloor();
-						list = monitor.addTaskFirst(list.get(i), i);
-
-					} else if (monitor.getDirection() == -1
-							&& list.get(i).getFloor() < elevator.whereIs()
-							&& list.get(i).getDirection() <= 0) {
-						destinationFloor = list.get(i).getFloor();
-						list = monitor.addTaskFirst(list.get(i), i);
-
+				/*
+				 * tasks first, so the events are handled with the latest stops
+				 */
+				Task task = monitor.pollTask();
+				String event = null;
+				if (task == null) {
+					event = monitor.pollEvent();
+					if (event == null) {
+						break;
 					}
 				}
-
-				destinationFloor = list.get(0).getFloor();
-
-				if (destinationFloor == 31000.0) {
-					elevator.open();
-					Thread.sleep(2000);
-					elevator.close();
-					Thread.sleep(1500);
-					monitor.removeTask(list.get(0));
-				} else if (elevator.whereIs() < destinationFloor) {
-					System.out.println("Elevator " + id + " moving up!");
-					while (elevator.whereIs() < destinationFloor - 0.001
-							&& !monitor.isStopButtonPressed()) {
-						elevator.up();
-						monitor.setDirection(1);
-						/*
-						 * updates the scale
-						 */
-						int where = (int) (elevator.whereIs() + 0.1);
-						elevator.setScalePosition(where);
-						Thread.sleep(10);
-						list = monitor.getTasks((int) destinationFloor);
-
-						for (int i = 1; i < list.size(); i++) {
-							if (list.get(i).getFloor() > elevator.whereIs()
-									&& list.get(i).getFloor() < destinationFloor
-									&& list.get(i).getDirection() >= 0) {
-
-								destinationFloor = list.get(i).getFloor();
-								list = monitor.addTaskFirst(list.get(i), i);
-
-							}
-
-						}
-
-					}
-					int where = (int) (elevator.whereIs() + 0.1);
-					elevator.setScalePosition(where);
-					if (!monitor.isStopButtonPressed()) {
-						elevator.stop();
-						elevator.open();
-						Thread.sleep((long) (2000 / time));
-						elevator.close();
-						Thread.sleep((long) (1500 / time));
-						print();
-						if (!monitor.isStopButtonPressed()) {
-							monitor.removeTask(list.get(0));
-						}
+				try {
+					if (task == null) {
+						handle(event);
+					} else if (monitor.apply(task)) {
+						handle(Monitor.TASK);
 					}
-					monitor.setStopButtonPressed(false);
-
-				} else {
-					System.out.println("Elevator " + id + " moving down!");
-					while (elevator.whereIs() > destinationFloor + 0.001
-							&& !monitor.isStopButtonPressed()) {
-						elevator.down();
-						monitor.setDirection(-1);
-						int where = (int) (elevator.whereIs() + 0.1);
-						elevator.setScalePosition(where);
-						Thread.sleep(10);
+				} catch (RemoteException e) {
+					e.printStackTrace();
+				} catch (RuntimeException e) {
+					System.err.println("Elevator " + id + " failed on "
+							+ ((task == null) ? event : task.getCommand()));
+					e.printStackTrace();
+				}
+			}
+		} finally {
+			monitor.setDoor(door(), dwell());
+			monitor.setPosition(position());
+			monitor.publish();
+			scheduled.set(false);
+		}
+		if (monitor.hasEvents()) {
+			wake();
+		}
+	}
 
-						list = monitor.getTasks((int) destinationFloor);
+	/**
+	 * Gets the state of the door in the current state
+	 * 
+	 * @return CarStatus.CLOSED, OPENING, OPEN or CLOSING
+	 */
+	protected int door() {
+		switch (state) {
+		case OPENING:
+			return CarStatus.OPENING;
+		case OPEN:
+			return CarStatus.OPEN;
+		case CLOSING:
+			return CarStatus.CLOSING;
+		default:
+			return CarStatus.CLOSED;
+		}
+	}
 
-						for (int i = 1; i < list.size(); i++) {
-							if (list.get(i).getFloor() < elevator.whereIs()
-									&& list.get(i).getFloor() > destinationFloor
-									&& list.get(i).getDirection() <= 0) {
+	/**
+	 * Gets the dwell time left in the current state
+	 * 
+	 * @return time in simulated milliseconds, see CarStatus.getDwell
+	 */
+	protected long dwell() {
+		switch (state) {
+		case OPENING:
+			return DWELL;
+		case OPEN:
+			return Math.max(0, closeAt - clock.currentTimeMillis());
+		default:
+			return 0;
+		}
+	}
 
-								destinationFloor = list.get(i).getFloor();
-								list = monitor.addTaskFirst(list.get(i), i);
+	/**
+	 * Gets the position of the cabin, extrapolated from the floor it has last
+	 * started from or passed while it is moving; at most one floor on, where
+	 * the next passing event tells where it is
+	 * 
+	 * @return position in floor units
+	 */
+	protected double position() {
+		if (state != MOVING || onFloor) {
+			return position;
+		}
+		double moved = velocity * (clock.currentTimeMillis() - movedAt);
+		return floor + monitor.getDirection() * Math.max(0, Math.min(moved, 1));
+	}
 
-							}
+	/**
+	 * Posts Monitor.CLOSE when the dwell time is over
+	 * 
+	 * @throws RemoteException
+	 */
+	protected void scheduleClose() throws RemoteException {
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				monitor.post(Monitor.CLOSE);
+			}
+		}, clock.realMillisUntil(closeAt), TimeUnit.MILLISECONDS);
+	}
 
-						}
+	/**
+	 * Handles one event in the current state
+	 *
+	 * @param event
+	 *            Monitor.TASK, Monitor.CLOSE or an action command from the
+	 *            simulator
+	 * @throws RemoteException
+	 */
+	protected void handle(String event) throws RemoteException {
+		if (event.equals(Monitor.CLOSE)) {
+			/*
+			 * keep the door open until the dwell time is over
+			 */
+			if (state == OPEN) {
+				if (clock.currentTimeMillis() >= closeAt) {
+					sender.door(id, Elevators.CLOSE);
+					state = CLOSING;
+				} else {
+					scheduleClose();
+				}
+			}
+			return;
+		}
+		if (event.equals(Monitor.TASK)) {
+			if (state == IDLE) {
+				dispatch();
+			} else if (state == MOVING && parking) {
+				cancelParking();
+			} else if (state == MOVING) {
+				retarget();
+			} else if (monitor.removeTasksOn(floor)) {
+				/*
+				 * a request for this floor while the door is open or
+				 * closing: keep it open a little longer or open it again
+				 */
+				if (state == OPEN) {
+					closeAt = clock.currentTimeMillis() + REOPEN_DWELL;
+				} else if (state == CLOSING) {
+					sender.door(id, Elevators.OPEN);
+					state = OPENING;
+				}
+			}
+			return;
+		}
+		String commandArray[] = event.split(" ");
+		if (commandArray[0].equals("p")) {
+			/*
+			 * stop command. stop and clear the task list.
+			 */
+			if (MainController.verbose) {
+				System.out.println("Elevator " + id + " stopped!");
+			}
+			sender.motor(id, Elevators.STOP);
+			position = position();
+			onFloor = false;
+			monitor.clearList();
+			monitor.setStopButtonPressed(true);
+			monitor.setIdle(-1);
+			destinationFloor = -1;
+			parking = false;
+			state = IDLE;
+		} else if (commandArray[0].equals("c")) {
+			floor = Integer.parseInt(commandArray[2]);
+			position = floor;
+			movedAt = clock.currentTimeMillis();
+			monitor.setFloor(floor);
+			if (state == MOVING) {
+				retarget();
+			}
+		} else if (commandArray[0].equals("a")) {
+			floor = Integer.parseInt(commandArray[2]);
+			position = floor;
+			onFloor = true;
+			monitor.setFloor(floor);
+			if (state == MOVING && floor == destinationFloor && parking) {
+				parking = false;
+				monitor.setIdle(floor);
+				state = IDLE;
+				dispatch();
+			} else if (state == MOVING && floor == destinationFloor) {
+				sender.door(id, Elevators.OPEN);
+				monitor.removeTasksOn(floor);
+				print();
+				state = OPENING;
+			}
+		} else if (commandArray[0].equals("d")) {
+			if (commandArray[3].equals("1") && state == OPENING) {
+				closeAt = clock.currentTimeMillis() + DWELL;
+				state = OPEN;
+				scheduleClose();
+			} else if (commandArray[3].equals("-1") && state == CLOSING) {
+				destinationFloor = -1;
+				state = IDLE;
+				dispatch();
+			}
+		}
+	}
 
-					}
-					int where = (int) (elevator.whereIs() + 0.1);
-					elevator.setScalePosition(where);
-					if (!monitor.isStopButtonPressed()) {
-						elevator.stop();
-						elevator.open();
-						Thread.sleep((long) (2000 / time));
-						elevator.close();
-						Thread.sleep((long) (1500 / time));
-						print();
-						if (!monitor.isStopButtonPressed()) {
-							monitor.removeTask(list.get(0));
-						}
-					}
-					monitor.setStopButtonPressed(false);
+	/**
+	 * Sends the idle elevator to the next stop in SCAN (LOOK) order, see
+	 * Monitor.nextStop
+	 */
+	protected void dispatch() {
+		int next = monitor.nextStop(floor, monitor.getDirection());
+		if (next < 0) {
+			int park = monitor.getParkingFloor();
+			if (park < 0 || park == floor) {
+				monitor.setIdle(floor);
+			} else {
+				if (MainController.verbose) {
+					System.out.println("Elevator " + id + " parking at "
+							+ park + "!");
 				}
+				parking = true;
+				destinationFloor = park;
+				monitor.setMoving((park > floor) ? 1 : -1, park);
+				goTo(park);
+				state = MOVING;
 			}
+			return;
+		}
+		destinationFloor = next;
+		if (destinationFloor == floor && onFloor) {
+			/*
+			 * On the correct floor, open the doors.
+			 */
+			sender.door(id, Elevators.OPEN);
+			monitor.removeTasksOn(floor);
+			state = OPENING;
+			return;
+		}
+		int direction = (destinationFloor > floor) ? 1 : -1;
+		if (MainController.verbose) {
+			System.out.println("Elevator " + id
+					+ ((direction == 1) ? " moving up!" : " moving down!"));
+		}
+		monitor.setMoving(direction, destinationFloor);
+		goTo(destinationFloor);
+		state = MOVING;
+	}
+
+	/**
+	 * Gives up the parking for a new task and heads for the next stop
+	 */
+	protected void cancelParking() {
+		int next = monitor.nextStop(floor, monitor.getDirection());
+		if (next < 0) {
+			return;
+		}
+		parking = false;
+		destinationFloor = next;
+		int direction = (next > floor) ? 1 : (next < floor) ? -1 : monitor
+				.getDirection();
+		monitor.setMoving(direction, destinationFloor);
+		goTo(destinationFloor);
+	}
+
+	/**
+	 * Picks up a task between the cabin and its destination on the way
+	 */
+	protected void retarget() {
+		int direction = monitor.getDirection();
+		int next = monitor.nextStop(floor, direction);
+		if ((next - floor) * direction > 0
+				&& (next - destinationFloor) * direction < 0) {
+			destinationFloor = next;
+			monitor.setMoving(direction, destinationFloor);
+			goTo(destinationFloor);
+		}
+	}
 
-		} catch (IllegalParamException e) {
-			e.printStackTrace();
-		} catch (RemoteException e) {
-			e.printStackTrace();
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-		} catch (NotBoundException e) {
-			e.printStackTrace();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+	/**
+	 * Sends the cabin to a floor; it stands on no floor until it arrives
+	 *
+	 * @param destination
+	 *            The floor
+	 */
+	protected void goTo(int destination) {
+		if (onFloor) {
+			movedAt = clock.currentTimeMillis();
 		}
+		onFloor = false;
+		sender.goTo(id, destination);
 	}
 
 	@Override
@@ -170,43 +423,37 @@ public class ElevatorController implements ActionListener, Runnable {
 		 * Parameter three sets the direction, panel buttons got no direction
 		 */
 		if (commandArray[0].equals("v")) {
-			time = Double.valueOf(commandArray[1]) * 10000;
-			System.out.println(commandArray[1]);
+			velocity = Double.parseDouble(commandArray[1]);
+			if (MainController.verbose) {
+				System.out.println("Velocity: " + commandArray[1]);
+			}
+		} else if (!commandArray[0].equals("p")) {
+			/*
+			 * event from the simulator
+			 */
+			monitor.post(command);
+		} else if (Integer.parseInt(commandArray[1]) == id
+				&& Double.parseDouble(commandArray[2]) == 32000) {
+			/*
+			 * stop command, handled by the controller thread
+			 */
+			monitor.post(command);
 		} else {
-
+			/*
+			 * normal command, send to task list.
+			 */
 			Task task = new Task(commandArray[0], Integer
 					.parseInt(commandArray[2]), 0);
-
-			if (Integer.parseInt(commandArray[1]) == id
-					&& Double.parseDouble(commandArray[2]) == 32000) {
-				/*
-				 * stop command. stop and clear the task list.
-				 */
-				try {
-					System.out.println("Elevator " + id + " stopped!");
-					elevator.stop();
-					/*
-					 * not stopped on any floor
-					 */
-					monitor.setStopButtonPressed(true);
-					list.clear();
-					monitor.clearList();
-
-				} catch (RemoteException e1) {
-					e1.printStackTrace();
-				}
-			} else {
-				/*
-				 * normal command, send to task list.
-				 */
-				requestedFloor = Double.parseDouble(commandArray[2]);
-				monitor.setTask(task);
-			}
+			monitor.setTask(task);
 		}
 
 	}
 
 	protected void print() {
+		if (!MainController.verbose) {
+			return;
+		}
+		ArrayList<Task> list = monitor.getTasks();
 		for (int j = 0; j < list.size(); j++) {
 			System.out.println("Position in list:" + j + "\tFloor: "
 					+ list.get(j).getFloor() + "\tDirection: "
@@ -0,0 +1,102 @@
+package Controller;
+
+/**
+ * Event handled by the event loop of the main controller. Made from an action
+ * command of the simulator by the listener thread that receives it.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public class GroupEvent {
+	/**
+	 * Kinds of events: a hall call ("b f d"), a destination call ("t f g"), a
+	 * new velocity ("v value")
+	 */
+	public static final int HALL_CALL = 0, DESTINATION_CALL = 1,
+			VELOCITY = 2;
+
+	private final int kind, floor, target;
+	private final double value;
+	private final long time;
+
+	private GroupEvent(int kind, int floor, int target, double value,
+			long time) {
+		this.kind = kind;
+		this.floor = floor;
+		this.target = target;
+		this.value = value;
+		this.time = time;
+	}
+
+	/**
+	 * Makes an event from an action command
+	 * 
+	 * @param command
+	 *            The action command
+	 * @param time
+	 *            The simulated time the event was received
+	 * @return event, null if the command is not known
+	 * @throws NumberFormatException
+	 *             if the command is malformed
+	 */
+	public static GroupEvent parse(String command, long time) {
+		String action[] = command.split(" ");
+		if (action[0].equals("b")) {
+			return new GroupEvent(HALL_CALL, Integer.parseInt(action[1]),
+					Integer.parseInt(action[2]), 0, time);
+		} else if (action[0].equals("t")) {
+			return new GroupEvent(DESTINATION_CALL, Integer
+					.parseInt(action[1]), Integer.parseInt(action[2]), 0, time);
+		} else if (action[0].equals("v")) {
+			return new GroupEvent(VELOCITY, -1, 0, Double
+					.parseDouble(action[1]), time);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the kind of the event
+	 * 
+	 * @return HALL_CALL, DESTINATION_CALL or VELOCITY
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the floor of a call
+	 * 
+	 * @return floor
+	 */
+	public int getFloor() {
+		return floor;
+	}
+
+	/**
+	 * Gets the direction of a hall call (1 = up -1 = down) or the
+	 * destination of a destination call
+	 * 
+	 * @return direction or floor
+	 */
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Gets the velocity
+	 * 
+	 * @return velocity in floor units per millisecond
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	/**
+	 * Gets the time the event was received
+	 * 
+	 * @return simulated time in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+}
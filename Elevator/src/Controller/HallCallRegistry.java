@@ -0,0 +1,286 @@
+package Controller;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry of all hall calls (floor buttons) of the building, keyed by floor
+ * and direction. Records which elevator owns each call and when the call was
+ * registered. Shared by the main controller and the elevator controllers
+ * without locking: each (floor, direction) slot holds an immutable HallCall
+ * that is replaced with compare-and-set, so a duplicate press is rejected and
+ * a call is reassigned or released atomically in O(1).
+ *
+ * A call is moved to another elevator in two steps: it is offered to the new
+ * elevator, and the owner then either hands it over or keeps it (see
+ * Monitor.apply). Until then the owner still owns the call and releases it if
+ * it serves it, so the call is never owned by two elevators.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class HallCallRegistry {
+	/**
+	 * The owner of a call that has not been assigned to an elevator yet
+	 */
+	public static final int UNASSIGNED = 0;
+
+	private AtomicReferenceArray<HallCall> calls;
+
+	/**
+	 * A hall call. Immutable, a new one replaces it when it is reassigned.
+	 */
+	public static final class HallCall {
+		private final int floor, direction, owner, offeredTo;
+		private final long time, assignedTime;
+
+		HallCall(int floor, int direction, int owner, int offeredTo,
+				long time, long assignedTime) {
+			this.floor = floor;
+			this.direction = direction;
+			this.owner = owner;
+			this.offeredTo = offeredTo;
+			this.time = time;
+			this.assignedTime = assignedTime;
+		}
+
+		/**
+		 * Gets the floor of the call
+		 *
+		 * @return int floor
+		 */
+		public int getFloor() {
+			return floor;
+		}
+
+		/**
+		 * Gets the direction of the call, 1 = up -1 = down
+		 *
+		 * @return int direction
+		 */
+		public int getDirection() {
+			return direction;
+		}
+
+		/**
+		 * Gets the number of the elevator that owns the call
+		 *
+		 * @return int owner, UNASSIGNED if none
+		 */
+		public int getOwner() {
+			return owner;
+		}
+
+		/**
+		 * Gets the number of the elevator the call has been offered to
+		 *
+		 * @return int elevator, UNASSIGNED if the call is not being moved
+		 */
+		public int getOfferedTo() {
+			return offeredTo;
+		}
+
+		/**
+		 * Gets the time the call was registered
+		 *
+		 * @return long simulated time in milliseconds
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Gets the time the call was last assigned or offered to an elevator
+		 *
+		 * @return long simulated time in milliseconds
+		 */
+		public long getAssignedTime() {
+			return assignedTime;
+		}
+	}
+
+	/**
+	 * Creates an empty registry
+	 *
+	 * @param floors
+	 *            The number of floors
+	 */
+	public HallCallRegistry(int floors) {
+		calls = new AtomicReferenceArray<HallCall>(2 * floors);
+	}
+
+	private static int slot(int floor, int direction) {
+		return 2 * floor + ((direction > 0) ? 0 : 1);
+	}
+
+	/**
+	 * Registers a new call, not assigned to any elevator yet
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param time
+	 *            The simulated time of the press
+	 * @return the new call, null if the call is already registered
+	 */
+	public HallCall register(int floor, int direction, long time) {
+		HallCall call = new HallCall(floor, direction, UNASSIGNED, UNASSIGNED,
+				time, time);
+		return calls.compareAndSet(slot(floor, direction), null, call) ? call
+				: null;
+	}
+
+	/**
+	 * Gets the call
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return the call, null if there is none
+	 */
+	public HallCall get(int floor, int direction) {
+		return calls.get(slot(floor, direction));
+	}
+
+	/**
+	 * Gets the owner of the call
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @return the number of the elevator, UNASSIGNED if none or no call
+	 */
+	public int ownerOf(int floor, int direction) {
+		HallCall call = get(floor, direction);
+		return (call == null) ? UNASSIGNED : call.owner;
+	}
+
+	/**
+	 * Assigns the call to the given elevator, if nobody has changed or
+	 * released it meanwhile
+	 *
+	 * @param call
+	 *            The call as last read
+	 * @param owner
+	 *            The number of the new owner
+	 * @param time
+	 *            The simulated time of the assignment
+	 * @return the reassigned call, null if the call has changed
+	 */
+	public HallCall assign(HallCall call, int owner, long time) {
+		HallCall next = new HallCall(call.floor, call.direction, owner,
+				UNASSIGNED, call.time, time);
+		return calls.compareAndSet(slot(call.floor, call.direction), call,
+				next) ? next : null;
+	}
+
+	/**
+	 * Offers the call to another elevator, if nobody has changed or released
+	 * it meanwhile. The owner keeps the call until it hands it over.
+	 *
+	 * @param call
+	 *            The call as last read
+	 * @param to
+	 *            The number of the elevator to move the call to
+	 * @param time
+	 *            The simulated time of the offer
+	 * @return the offered call, null if the call has changed
+	 */
+	public HallCall offer(HallCall call, int to, long time) {
+		HallCall next = new HallCall(call.floor, call.direction, call.owner,
+				to, call.time, time);
+		return calls.compareAndSet(slot(call.floor, call.direction), call,
+				next) ? next : null;
+	}
+
+	/**
+	 * Hands the call over to the elevator it has been offered to
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param owner
+	 *            The number of the elevator that owns the call
+	 * @return the number of the new owner, UNASSIGNED if the call is not owned
+	 *         by the elevator or not offered
+	 */
+	public int handOver(int floor, int direction, int owner) {
+		int slot = slot(floor, direction);
+		HallCall call;
+		do {
+			call = calls.get(slot);
+			if (call == null || call.owner != owner
+					|| call.offeredTo == UNASSIGNED) {
+				return UNASSIGNED;
+			}
+		} while (!calls.compareAndSet(slot, call, new HallCall(floor,
+				direction, call.offeredTo, UNASSIGNED, call.time,
+				call.assignedTime)));
+		return call.offeredTo;
+	}
+
+	/**
+	 * Withdraws the offer of the call, the owner keeps it
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param owner
+	 *            The number of the elevator that owns the call
+	 * @return boolean True if the call was offered
+	 */
+	public boolean keep(int floor, int direction, int owner) {
+		int slot = slot(floor, direction);
+		HallCall call;
+		do {
+			call = calls.get(slot);
+			if (call == null || call.owner != owner
+					|| call.offeredTo == UNASSIGNED) {
+				return false;
+			}
+		} while (!calls.compareAndSet(slot, call, new HallCall(floor,
+				direction, owner, UNASSIGNED, call.time, call.assignedTime)));
+		return true;
+	}
+
+	/**
+	 * Releases the call when it has been served by its owner
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param owner
+	 *            The number of the elevator that has served the call
+	 * @return boolean True if the call was owned by the elevator
+	 */
+	public boolean release(int floor, int direction, int owner) {
+		int slot = slot(floor, direction);
+		HallCall call;
+		do {
+			call = calls.get(slot);
+			if (call == null || call.owner != owner) {
+				return false;
+			}
+		} while (!calls.compareAndSet(slot, call, null));
+		return true;
+	}
+
+	/**
+	 * Gets a snapshot of the calls owned by the given elevator, or of all
+	 * calls
+	 *
+	 * @param owner
+	 *            The number of the elevator, -1 for all calls
+	 * @return list of calls
+	 */
+	public ArrayList<HallCall> getCalls(int owner) {
+		ArrayList<HallCall> list = new ArrayList<HallCall>();
+		for (int i = 0; i < calls.length(); i++) {
+			HallCall call = calls.get(i);
+			if (call != null && (owner < 0 || call.owner == owner)) {
+				list.add(call);
+			}
+		}
+		return list;
+	}
+}
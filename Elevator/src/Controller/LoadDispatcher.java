@@ -0,0 +1,41 @@
+package Controller;
+
+/**
+ * Chooses the elevator with the fewest stops for a hall call. Elevators with
+ * the same number of stops take turns.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public class LoadDispatcher implements DispatchStrategy {
+	private int next = 1;
+
+	@Override
+	public synchronized int dispatch(CarStatus[] fleet, int floor,
+			int direction) {
+		int n = fleet.length - 1;
+		int best = next, bestSize = Integer.MAX_VALUE;
+		for (int k = 0; k < n; k++) {
+			/*
+			 * start with the elevator after the last chosen one
+			 */
+			int i = (next - 1 + k) % n + 1;
+			int size = fleet[i].getSizeOfListOfTasks();
+			if (size < bestSize) {
+				bestSize = size;
+				best = i;
+			}
+		}
+		next = best % n + 1;
+		return best;
+	}
+
+	@Override
+	public void setVelocity(double velocity) {
+	}
+
+	@Override
+	public String toString() {
+		return "load";
+	}
+}
@@ -3,36 +3,166 @@ package Controller;
 import java.awt.event.*;
 import java.net.MalformedURLException;
 import java.rmi.*;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import elevator.rmi.*;
 
 /**
- * Controller that handles the distribution of tasks between elevators.
+ * Controller that handles the distribution of tasks between elevators. The
+ * controller has its own event loop: the listeners only put the events from
+ * the simulator into a bounded queue, and the controller thread takes them in
+ * batches, so a burst of presses is handled in one round by one thread. The
+ * calls of a round are given out on the statuses of the elevators read at the
+ * start of the round, with the calls already given out in the round added, so
+ * a burst is spread over the elevators. Every
+ * hall call is registered in the hall call registry, which rejects a call that
+ * is already pending and records the elevator it has been given to. The
+ * elevator is chosen by the dispatch strategy given at startup:
+ * 
+ * java Controller.MainController [-dispatch eta|nearest|load|zone] [-start h]
+ * [-threads n] [-verbose]
+ * 
+ * eta (the default) estimates the time to serve the call (see CostDispatcher),
+ * nearest takes the nearest elevator, load the elevator with the fewest stops
+ * and zone the elevator serving the zone of the floor. Destination calls
+ * ("t f g", the simulator started with -destination) are always given by the
+ * DestinationDispatcher, which groups riders going to the same floor.
+ * 
+ * After the start the controller thread periodically moves hall calls to
+ * elevators that would serve them clearly sooner (see Reassigner) and sends
+ * idle elevators to parking floors chosen from the recent demand (see
+ * ParkingPolicy). Calls are only moved with eta, the other strategies have no
+ * estimate to compare the elevators by. Every hall call is fed to the demand
+ * estimator, which gives the parking policy its demand and reports the
+ * traffic mode. The time of day at the start of the simulation is given with
+ * -start, in hours (8 by default). The elevator controllers share a
+ * scheduler of -threads threads, one per processor by default, and send their
+ * commands through one command sender, so their runs never wait on the
+ * simulator.
+ * With -verbose the controller prints every call, the elevator it is given
+ * to, parkings, changes of the traffic mode and the moves of the cars.
  * 
  * @author Ivan Pedersen, Alfred Andersson
  * 
  */
 public class MainController extends Thread implements ActionListener {
+	/**
+	 * The capacity of the event queue and the most events handled in one
+	 * round
+	 */
+	public static final int QUEUE_SIZE = 1024, BATCH_SIZE = 64;
+
+	/**
+	 * Whether to print the decisions of the group control (-verbose)
+	 */
+	static volatile boolean verbose = false;
+
 	Motor motor;
 	Door door;
 	Scale scale;
 	Monitor[] monitor;
+	HallCallRegistry registry;
+	DispatchStrategy strategy;
+	String strategyName;
+	DestinationDispatcher destinations;
+	Reassigner reassigner;
+	ParkingPolicy parking;
+	DemandEstimator demand;
+	long startOfDay;
+	int mode = DemandEstimator.IDLE;
 	Elevators elevators;
-	String rmihost, action[] = new String[3];
-	int elevatorNumber;
+	Clock clock;
+	String rmihost;
 	int numOfElevators;
-	double requestedFloor;
+	ArrayBlockingQueue<GroupEvent> events = new ArrayBlockingQueue<GroupEvent>(
+			QUEUE_SIZE);
+	ArrayList<GroupEvent> batch = new ArrayList<GroupEvent>(BATCH_SIZE);
+	/*
+	 * the statuses of the elevators during a round, with the calls given out
+	 * in the round
+	 */
+	CarStatus[] fleet;
 
-	public MainController(Monitor monitor[]) {
+	public MainController(Monitor monitor[], HallCallRegistry registry,
+			String strategyName, long startOfDay) {
 		this.monitor = monitor;
+		this.registry = registry;
+		this.strategyName = strategyName;
+		this.startOfDay = startOfDay;
+	}
+
+	/**
+	 * Creates the dispatch strategy with the given name
+	 * 
+	 * @param name
+	 *            eta, nearest, load or zone
+	 * @param floors
+	 *            The number of floors
+	 * @param velocity
+	 *            The velocity of the elevators
+	 * @return strategy
+	 * @throws IllegalArgumentException
+	 *             if there is no strategy with the name
+	 */
+	public static DispatchStrategy makeStrategy(String name, int floors,
+			double velocity) {
+		if (name.equals("eta")) {
+			return new CostDispatcher(velocity);
+		} else if (name.equals("nearest")) {
+			return new NearestDispatcher(floors);
+		} else if (name.equals("load")) {
+			return new LoadDispatcher();
+		} else if (name.equals("zone")) {
+			return new ZoneDispatcher(floors);
+		}
+		throw new IllegalArgumentException("Unknown dispatch strategy: "
+				+ name);
 	}
 
 	public void run() {
 		try {
 
 			MakeAll.init("localhost");
-			MakeAll.addFloorListener(this);
 			numOfElevators = MakeAll.getNumberOfElevators();
-			elevators = MakeAll.getElevators();
+			elevators = MakeAll.getCachedElevators();
+			clock = MakeAll.getClock();
+			strategy = makeStrategy(strategyName, MakeAll.getNumberOfFloors(),
+					MakeAll.getVelocity());
+			destinations = new DestinationDispatcher(MakeAll.getVelocity());
+			for (int i = 1; i < monitor.length; i++) {
+				monitor[i].setGroup(monitor);
+			}
+			if (strategy instanceof CostDispatcher) {
+				reassigner = new Reassigner(monitor, registry,
+						(CostDispatcher) strategy);
+			}
+			demand = new DemandEstimator(MakeAll.getNumberOfFloors(),
+					startOfDay);
+			parking = new ParkingPolicy(monitor, demand);
+			MakeAll.addVelocityListener(this);
+			MakeAll.addFloorListener(this);
+
+			long next = clock.currentTimeMillis();
+			while (true) {
+				GroupEvent event = events.poll(Math.max(1, clock
+						.realMillisUntil(next)), TimeUnit.MILLISECONDS);
+				if (event != null) {
+					batch.add(event);
+					events.drainTo(batch, BATCH_SIZE - 1);
+					handle(batch);
+					batch.clear();
+				}
+				long now = clock.currentTimeMillis();
+				if (now >= next) {
+					pass(now);
+					next = now
+							+ (long) (Reassigner.PERIOD * destinations
+									.getFloorTime());
+				}
+			}
 
 		} catch (RemoteException e) {
 			e.printStackTrace();
@@ -40,6 +170,8 @@ public class MainController extends Thread implements ActionListener {
 			e.printStackTrace();
 		} catch (NotBoundException e) {
 			e.printStackTrace();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
 		}
 
 	}
@@ -47,182 +179,174 @@ public class MainController extends Thread implements ActionListener {
 	public static void main(String[] args) throws RemoteException,
 			MalformedURLException, NotBoundException, InterruptedException {
 
+		String strategyName = "eta";
+		long startOfDay = 8 * 3600000L;
+		int threads = 0;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-verbose")) {
+				verbose = true;
+			} else if (i == args.length - 1) {
+				break;
+			} else if (args[i].equals("-dispatch")) {
+				strategyName = args[i + 1];
+			} else if (args[i].equals("-start")) {
+				startOfDay = (long) (Double.parseDouble(args[i + 1]) * 3600000);
+			} else if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[i + 1]);
+			}
+		}
+		/*
+		 * fail before starting anything if the name is wrong
+		 */
+		makeStrategy(strategyName, 1, 1);
+
+		HallCallRegistry registry = new HallCallRegistry(MakeAll
+				.getNumberOfFloors());
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		ScheduledExecutorService scheduler = Executors
+				.newScheduledThreadPool(threads);
+		CommandSender sender = new CommandSender(MakeAll.getElevators());
+		sender.start();
 		Monitor[] monitorList = new Monitor[MakeAll.getNumberOfElevators() + 1];
 		for (int i = 1; i < MakeAll.getNumberOfElevators() + 1; i++) {
-			monitorList[i] = new Monitor();
-			new Thread(new ElevatorController(monitorList[i], i)).start();
-			Thread.sleep(10);
+			monitorList[i] = new Monitor(registry, i);
+			new ElevatorController(monitorList[i], i, scheduler, sender)
+					.start();
 		}
 
-		new Thread(new MainController(monitorList)).start();
+		new Thread(new MainController(monitorList, registry,
+				strategyName, startOfDay)).start();
 
 	}
 
-	@Override
-	public void actionPerformed(ActionEvent e) {
-
-		action = e.getActionCommand().split(" ");
-		elevatorNumber = Integer.parseInt(action[1]);
-		int direction = Integer.parseInt(action[2]);
-		int floor = Integer.parseInt(action[1]);
-		int closeUpFloor = floor + 1;
-		int closeDownFloor = floor - 1;
-		boolean done = false;
-		Task task = new Task(action[0], floor, direction);
-
-		System.out.println("M command=" + e.getActionCommand());
-		try {
-
-			for (int i = 1; i < numOfElevators + 1; i++) {
-
-				if (task.existsIn(monitor[i].list)) {
-					done = true;
-				}
-
+	/**
+	 * The periodic pass: moves hall calls, parks idle elevators and checks the
+	 * traffic mode
+	 * 
+	 * @param now
+	 *            The simulated time
+	 */
+	protected void pass(long now) {
+		if (reassigner != null) {
+			reassigner.reassign(now);
+		}
+		parking.park(now, destinations.getFloorTime());
+		int m = demand.mode(now);
+		if (m != mode) {
+			mode = m;
+			if (verbose) {
+				System.out.println("M traffic " + DemandEstimator.MODES[m]);
 			}
+		}
+	}
 
-			if (direction == 1) {
-				/*
-				 * up action requested
-				 */
-
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					if (monitor[i].getStoppedOnFloor() == floor) {
-						/*
-						 * this elevator is stationary on this floor, choose
-						 * this one
-						 */
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * find a elevator on close floor that's going in the right
-					 * direction
-					 */
-					if (monitor[i].getDirection() == 1
-							&& elevators.whereIs(i) < floor
-							&& elevators.whereIs(i) > closeDownFloor
-							&& monitor[i].list.get(0).getDirection() != -1) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * finds stationary elevator on above or below floor
-					 */
-					if ((task.getFloor() != 0 && monitor[i].getStoppedOnFloor() == floor - 1)
-							|| (task.getFloor() != MakeAll.getNumberOfFloors() && monitor[i]
-									.getStoppedOnFloor() == floor + 1)) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * find a elevator floor that's going in the right direction
-					 */
-					if (monitor[i].getDirection() == 1
-							&& elevators.whereIs(i) < floor
-							&& monitor[i].list.get(0).getDirection() != -1) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				if (!done) {
-					int smallestListSize = monitor[1].getSizeOfListOfTasks();
-					int index = 1;
-					for (int i = 2; i < numOfElevators + 1 && !done; i++) {
-						if (monitor[i].getSizeOfListOfTasks() < smallestListSize) {
-							smallestListSize = monitor[i]
-									.getSizeOfListOfTasks();
-							index = i;
-						}
-					}
-					monitor[index].setTask(task);
-					done = true;
-				}
-
-			} else {
-				/*
-				 * down action requested
-				 */
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					if (monitor[i].getStoppedOnFloor() == floor) {
-						/*
-						 * this elevator is stationary on this floor, choose
-						 * this one
-						 */
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * find a elevator on close floor that's going in the right
-					 * direction
-					 */
-					if (monitor[i].getDirection() == -1
-							&& elevators.whereIs(i) > floor
-							&& elevators.whereIs(i) < closeUpFloor
-							&& monitor[i].list.get(0).getDirection() != 1) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * finds stationary elevator on above or below floor
-					 */
-					if ((task.getFloor() != 0 && monitor[i].getStoppedOnFloor() == floor - 1)
-							|| (task.getFloor() != MakeAll.getNumberOfFloors() && monitor[i]
-									.getStoppedOnFloor() == floor + 1)) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-
-				}
-				for (int i = 1; i < numOfElevators + 1 && !done; i++) {
-					/*
-					 * find a elevator floor that's going in the right direction
-					 */
-					if (monitor[i].getDirection() == -1
-							&& elevators.whereIs(i) > floor
-							&& monitor[i].list.get(0).getDirection() != 1) {
-						monitor[i].setTask(task);
-						done = true;
-					}
-				}
-				if (!done) {
-					int smallestListSize = monitor[1].getSizeOfListOfTasks();
-					int index = 1;
-					for (int i = 2; i < numOfElevators + 1 && !done; i++) {
-						if (monitor[i].getSizeOfListOfTasks() < smallestListSize) {
-							smallestListSize = monitor[i]
-									.getSizeOfListOfTasks();
-							index = i;
-						}
-					}
-					monitor[index].setTask(task);
-					done = true;
-				}
-
+	/**
+	 * Handles a round of events. The statuses of the elevators are read once,
+	 * and every call given out in the round is added to the status of its
+	 * elevator (see CarStatus.withStop) before the next call is dispatched.
+	 * 
+	 * @param batch
+	 *            The events in the order they were received
+	 */
+	protected void handle(ArrayList<GroupEvent> batch) {
+		fleet = Monitor.getStatus(monitor, fleet);
+		for (int k = 0; k < batch.size(); k++) {
+			GroupEvent event = batch.get(k);
+			switch (event.getKind()) {
+			case GroupEvent.VELOCITY:
+				strategy.setVelocity(event.getValue());
+				destinations.setVelocity(event.getValue());
+				break;
+			case GroupEvent.DESTINATION_CALL:
+				destinationCall(event.getFloor(), event.getTarget(), event
+						.getTime());
+				break;
+			default:
+				hallCall(event.getFloor(), event.getTarget(), event.getTime());
 			}
-		} catch (RemoteException e2) {
-			e2.printStackTrace();
+		}
+	}
 
-		} catch (MalformedURLException e2) {
-			// TODO Auto-generated catch block
-			e2.printStackTrace();
-		} catch (NotBoundException e2) {
-			// TODO Auto-generated catch block
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		/*
+		 * called by the listener threads, only queue the event
+		 */
+		GroupEvent event = GroupEvent.parse(e.getActionCommand(), clock
+				.currentTimeMillis());
+		if (event == null) {
+			return;
+		}
+		try {
+			events.put(event);
+		} catch (InterruptedException e2) {
 			e2.printStackTrace();
 		}
+	}
 
-		return;
+	/**
+	 * Gives a hall call to the elevator chosen by the dispatch strategy,
+	 * unless the call is already pending
+	 * 
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 * @param time
+	 *            The simulated time of the press
+	 */
+	protected void hallCall(int floor, int direction, long time) {
+		if (verbose) {
+			System.out.println("M command=b " + floor + " " + direction);
+		}
+		/*
+		 * every press counts as demand, also a repeated one
+		 */
+		demand.record(floor, direction, time);
+		HallCallRegistry.HallCall call = registry.register(floor, direction,
+				time);
+		if (call == null) {
+			/*
+			 * the call is already pending
+			 */
+			return;
+		}
+		int index = strategy.dispatch(fleet, floor, direction);
+		if (verbose) {
+			System.out.println("M dispatch " + strategy + " -> " + index);
+		}
+		/*
+		 * record the owner before handing over the task, so the elevator
+		 * releases the call when it serves it
+		 */
+		registry.assign(call, index, time);
+		monitor[index].setTask(new Task("b", floor, direction));
+		fleet[index] = fleet[index].withStop(floor, direction);
+	}
 
+	/**
+	 * Gives a destination call to the elevator chosen by the destination
+	 * dispatcher
+	 * 
+	 * @param floor
+	 * @param destination
+	 * @param time
+	 *            The simulated time of the press
+	 */
+	protected void destinationCall(int floor, int destination, long time) {
+		if (verbose) {
+			System.out.println("M destination " + floor + " -> " + destination);
+		}
+		demand.record(floor, (destination > floor) ? 1 : -1, time);
+		if (floor == destination) {
+			return;
+		}
+		int index = destinations.dispatchTo(fleet, floor, destination);
+		if (verbose) {
+			System.out.println("M dispatch " + destinations + " -> " + index);
+		}
+		monitor[index].setDestinationTask(floor, destination);
+		fleet[index] = fleet[index].withDestinationCall(floor, destination);
 	}
 }
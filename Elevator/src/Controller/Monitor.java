@@ -1,122 +1,469 @@
 package Controller;
 
 import java.util.ArrayList;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
- * Monitor that handles communication between each elevator and main controller
+ * Monitor that handles communication between each elevator and main controller.
+ * The tasks are kept as a set of stops indexed by floor (see StopSet).
+ * 
+ * Nothing is shared under a lock. The main controller and the listeners hand
+ * tasks (assignments, cancellations, parking) to the elevator through a
+ * mailbox, and events from the simulator through an event queue, both
+ * lock-free queues with any number of senders and one receiver. Sending wakes
+ * the elevator controller up, which applies the tasks to the stops and handles
+ * the events. The stops and the rest of the state of the elevator are only
+ * read and changed by its controller; after each run the controller publishes
+ * a copy (see CarStatus), which is what the main controller reads to dispatch.
+ * Hall calls served or dropped by the elevator are released in the hall call
+ * registry.
  * 
  * @author Ivan Pedersen, Alfred Andersson
  * 
  */
 public class Monitor {
-	ArrayList<Task> list = new ArrayList<Task>();
+	private StopSet stops = new StopSet();
+	/*
+	 * destinations of the riders waiting on each floor (destination dispatch),
+	 * they become car calls when the riders get on
+	 */
+	private StopSet[] riders = new StopSet[0];
 	private int direction = 0;
+	private int destination = -1;
+	private int floor = 0;
+	private double position = 0;
+	private int parkingFloor = -1;
 	private int stoppedOnFloor = 0;
 	private boolean stopButtonPressed = false;
+	private ConcurrentLinkedQueue<Task> mail = new ConcurrentLinkedQueue<Task>();
+	private ConcurrentLinkedQueue<String> events = new ConcurrentLinkedQueue<String>();
+	private int door = CarStatus.CLOSED;
+	private long dwell = 0;
+	private long sequence = 0;
+	private volatile CarStatus status;
+	private volatile Runnable wakeup;
+	private HallCallRegistry registry;
+	private Monitor[] group;
+	private int id;
+
+	/**
+	 * The event handled when a task has been added
+	 */
+	public static final String TASK = "task";
+
+	/**
+	 * Commands of the tasks that are not stops: park at a floor, cancel a hall
+	 * call given to another elevator
+	 */
+	public static final String PARK = "park", CANCEL = "cancel";
+
+	/**
+	 * The event posted when the dwell time of the door may be over
+	 */
+	public static final String CLOSE = "close";
+
+	/**
+	 * Creates the monitor of an elevator
+	 * 
+	 * @param registry
+	 *            The hall call registry shared by all elevators
+	 * @param id
+	 *            The number of the elevator
+	 */
+	public Monitor(HallCallRegistry registry, int id) {
+		this.registry = registry;
+		this.id = id;
+		publish();
+	}
+
+	/**
+	 * Sets the monitors of all elevators, to hand hall calls over to
+	 * 
+	 * @param group
+	 *            The monitors, indexed from 1
+	 */
+	public void setGroup(Monitor[] group) {
+		this.group = group;
+	}
 
 	/**
 	 * Adds a task to the elevators task list
 	 * 
 	 * @param task
 	 */
-	public synchronized void setTask(Task task) {
+	public void setTask(Task task) {
+		send(task);
+	}
+
+	/**
+	 * Adds a destination call: a stop on the floor of the call in the
+	 * direction of the destination, and the destination as a car call once
+	 * the riders have got on
+	 * 
+	 * @param floor
+	 * @param destination
+	 */
+	public void setDestinationTask(int floor, int destination) {
+		send(new Task("t", floor, (destination > floor) ? 1 : -1, destination));
+	}
+
+	/**
+	 * Sends the elevator to a parking floor if it is still idle when it gets
+	 * the task. A new task cancels the parking.
+	 * 
+	 * @param floor
+	 */
+	public void park(int floor) {
+		send(new Task(PARK, floor, 0));
+	}
+
+	/**
+	 * Asks the elevator to hand over a hall call that has been offered to
+	 * another one (see HallCallRegistry.offer). An elevator that is already
+	 * stopping for the call keeps it.
+	 * 
+	 * @param floor
+	 * @param direction
+	 *            1 = up -1 = down
+	 */
+	public void cancelHallCall(int floor, int direction) {
+		send(new Task(CANCEL, floor, direction));
+	}
 
-		if (task.getCommand().equals("p")) {
+	/**
+	 * Puts a task into the mailbox and wakes the elevator controller up
+	 */
+	private void send(Task task) {
+		mail.offer(task);
+		Runnable w = wakeup;
+		if (w != null) {
+			w.run();
+		}
+	}
+
+	/**
+	 * Takes the next task from the mailbox
+	 * 
+	 * @return task, null if there is none
+	 */
+	public Task pollTask() {
+		return mail.poll();
+	}
+
+	/**
+	 * Applies a task taken from the mailbox
+	 * 
+	 * @param task
+	 * @return boolean True if the elevator has a new stop or has to park
+	 */
+	public boolean apply(Task task) {
+		String command = task.getCommand();
+		int floor = task.getFloor();
+		if (command.equals(CANCEL)) {
+			int direction = task.getDirection();
+			if (floor == destination || floor == stoppedOnFloor
+					|| group == null) {
+				registry.keep(floor, direction, id);
+				return false;
+			}
 			/*
-			 * Elevator button pressed
+			 * the new owner gets the call only once this one has given it up
 			 */
-			if (!task.existsIn(list)) {
-				if (stoppedOnFloor == task.getFloor()) {
-					if (task.existsIn(list)) {
-					} else {
-						/*
-						 * On the correct floor, open the doors.
-						 */
-						list.add(task);
-						notify();
-					}
-				} else {
-					list.add(task);
-					notify();
-
-				}
+			int next = registry.handOver(floor, direction, id);
+			if (next != HallCallRegistry.UNASSIGNED) {
+				stops.remove(floor, direction);
+				group[next].setTask(new Task("b", floor, direction));
+			}
+			return false;
+		} else if (command.equals(PARK)) {
+			if (!isIdle()) {
+				return false;
+			}
+			parkingFloor = floor;
+			return true;
+		}
+		parkingFloor = -1;
+		if (command.equals("t")) {
+			if (floor >= riders.length) {
+				riders = java.util.Arrays.copyOf(riders, floor + 1);
+			}
+			if (riders[floor] == null) {
+				riders[floor] = new StopSet();
 			}
+			riders[floor].add(task.getTarget(), 0);
+		}
+		return stops.add(floor, task.getDirection());
+	}
 
-		} else if (task.getCommand().equals("b")) {
-			if (!task.existsIn(list)) {
-				if (task.existsIn(list)) {
-				} else {
-					/*
-					 * On the correct floor, open the doors.
-					 */
-					list.add(task);
-					notify();
-				}
-			} else {
-				list.add(task);
-				notify();
+	/**
+	 * Publishes the state of the elevator for the main controller
+	 */
+	public void publish() {
+		status = new CarStatus(++sequence, floor, position, direction,
+				destination, stoppedOnFloor, parkingFloor, door, dwell,
+				stopButtonPressed, stops, riders);
+	}
 
-			}
+	/**
+	 * Gets the state of the elevator as last published
+	 * 
+	 * @return status
+	 */
+	public CarStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the state of all elevators as last published, one read of each
+	 * 
+	 * @param monitor
+	 *            The monitors of the elevators, indexed from 1
+	 * @param fleet
+	 *            The array to fill, null to create one
+	 * @return the statuses, indexed from 1
+	 */
+	public static CarStatus[] getStatus(Monitor[] monitor, CarStatus[] fleet) {
+		if (fleet == null || fleet.length < monitor.length) {
+			fleet = new CarStatus[monitor.length];
+		}
+		for (int i = 1; i < monitor.length; i++) {
+			fleet[i] = monitor[i].status;
 		}
+		return fleet;
+	}
 
+	/**
+	 * Sets the state of the door, published with the next status
+	 * 
+	 * @param door
+	 *            CarStatus.CLOSED, OPENING, OPEN or CLOSING
+	 * @param dwell
+	 *            The dwell time left in milliseconds, see CarStatus.getDwell
+	 */
+	public void setDoor(int door, long dwell) {
+		this.door = door;
+		this.dwell = dwell;
 	}
 
 	/**
-	 * Gets a list of tasks that this elevator has
+	 * Sets the position of the cabin, published with the next status
+	 * 
+	 * @param position
+	 *            in floor units
+	 */
+	public void setPosition(double position) {
+		this.position = position;
+	}
+
+	/**
+	 * Checks if the elevator is idle: stopped on a floor with no tasks, not
+	 * stopped by the stop button and not parking
+	 */
+	private boolean isIdle() {
+		return direction == 0 && stops.isEmpty() && stoppedOnFloor >= 0
+				&& !stopButtonPressed && parkingFloor < 0;
+	}
+
+	/**
+	 * Gets the floor the elevator has been sent to park at
+	 * 
+	 * @return floor, -1 if not parking
+	 */
+	public int getParkingFloor() {
+		return parkingFloor;
+	}
+
+	/**
+	 * Checks if the elevator already has the task
+	 * 
+	 * @param task
+	 * @return boolean
+	 */
+	public boolean hasTask(Task task) {
+		return stops.contains(task.getFloor(), task.getDirection());
+	}
+
+	/**
+	 * Sets what to run when an event has been posted
+	 * 
+	 * @param wakeup
+	 *            Wakes the elevator controller up
+	 */
+	public void setWakeup(Runnable wakeup) {
+		this.wakeup = wakeup;
+	}
+
+	/**
+	 * Posts an event to the elevator controller
+	 * 
+	 * @param event
+	 *            The event, e.g. an action command from the simulator
+	 */
+	public void post(String event) {
+		events.offer(event);
+		Runnable w = wakeup;
+		if (w != null) {
+			w.run();
+		}
+	}
+
+	/**
+	 * Takes the next event
+	 * 
+	 * @return event, null if there is none
+	 */
+	public String pollEvent() {
+		return events.poll();
+	}
+
+	/**
+	 * Checks if there are tasks or events to take
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasEvents() {
+		return !mail.isEmpty() || !events.isEmpty();
+	}
+
+	/**
+	 * Gets a snapshot of the tasks that this elevator has, ordered by floor
 	 * 
-	 * @param stoppedOnFloor
 	 * @return list - The ArrayList of tasks this elevator has
 	 */
-	public synchronized ArrayList<Task> getTasks(int stoppedOnFloor) {
-		if (list.size() == 0) {
-			try {
-				if (!stopButtonPressed) {
-					this.setStoppedOnFloor(stoppedOnFloor);
-					direction = 0;
-				}
-				wait();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	public ArrayList<Task> getTasks() {
+		ArrayList<Task> list = new ArrayList<Task>(stops.size());
+		for (int f = stops.higher(-1, StopSet.ANY); f >= 0; f = stops
+				.higher(f, StopSet.ANY)) {
+			if (stops.contains(f, 1)) {
+				list.add(new Task("b", f, 1));
+			}
+			if (stops.contains(f, 0)) {
+				list.add(new Task("p", f, 0));
+			}
+			if (stops.contains(f, -1)) {
+				list.add(new Task("b", f, -1));
 			}
-		} else {
-			stopButtonPressed = false;
-			this.setStoppedOnFloor(-1);
 		}
 		return list;
 	}
 
 	/**
-	 * Gets the first task of this elevators
+	 * Gets the next stop in SCAN (LOOK) order, see StopSet.nextStop
 	 * 
-	 * @return task
+	 * @param floor
+	 *            The floor the elevator is at or has last passed
+	 * @param direction
+	 *            -1 = down 0 = no direction 1 = up
+	 * @return floor, -1 if there are no tasks
 	 */
-	public synchronized Task getFirstTask() {
-		return list.get(0);
+	public int nextStop(int floor, int direction) {
+		return stops.nextStop(floor, direction);
 	}
 
 	/**
-	 * Gets the size of the list
+	 * Sets the floor the elevator has last reached or passed
 	 * 
-	 * @return size
+	 * @param floor
 	 */
-	public synchronized int getSizeOfListOfTasks() {
-		return list.size();
+	public void setFloor(int floor) {
+		this.floor = floor;
 	}
 
 	/**
-	 * Adds the task to the front of the list
+	 * Gets the floor the elevator has last reached or passed
 	 * 
-	 * @param task
-	 *            The task that gets added first in the list
-	 * @param position
-	 *            The position of the task
-	 * @return list The new list
+	 * @return floor
 	 */
-	public synchronized ArrayList<Task> addTaskFirst(Task task, int position) {
-		list.remove(position);
-		list.add(0, task);
-		return list;
+	public int getFloor() {
+		return floor;
+	}
+
+	/**
+	 * Marks the elevator as moving in the given direction
+	 * 
+	 * @param direction
+	 * @param destination
+	 *            The floor the elevator is going to
+	 */
+	public void setMoving(int direction, int destination) {
+		this.direction = direction;
+		this.destination = destination;
+		stoppedOnFloor = -1;
+		stopButtonPressed = false;
+	}
+
+	/**
+	 * Gets the direction of the hall call the elevator is going to
+	 * 
+	 * @return -1 = down 0 = no direction (a car call or none) 1 = up
+	 */
+	public int getTargetDirection() {
+		if (destination < 0 || stops.contains(destination, 0)) {
+			return 0;
+		} else if (stops.contains(destination, 1)) {
+			return stops.contains(destination, -1) ? 0 : 1;
+		}
+		return stops.contains(destination, -1) ? -1 : 0;
+	}
+
+	/**
+	 * Marks the elevator as idle, stopped on the given floor
+	 * 
+	 * @param stoppedOnFloor
+	 *            The floor, -1 if not stopped on a floor
+	 */
+	public void setIdle(int stoppedOnFloor) {
+		this.stoppedOnFloor = stoppedOnFloor;
+		if (stoppedOnFloor >= 0) {
+			floor = stoppedOnFloor;
+		}
+		parkingFloor = -1;
+		direction = 0;
+		destination = -1;
+	}
+
+	/**
+	 * Removes all tasks on the given floor, they are served
+	 * 
+	 * @param floor
+	 * @return boolean True if any task has been removed
+	 */
+	public boolean removeTasksOn(int floor) {
+		release(floor);
+		boolean removed = stops.removeFloor(floor);
+		if (floor < riders.length && riders[floor] != null) {
+			/*
+			 * the waiting riders get on
+			 */
+			StopSet on = riders[floor];
+			for (int f = on.higher(-1, StopSet.CAR); f >= 0; f = on.higher(f,
+					StopSet.CAR)) {
+				stops.add(f, 0);
+			}
+			on.clear();
+		}
+		return removed;
+	}
+
+	/**
+	 * Releases the hall calls on the floor owned by this elevator
+	 */
+	private void release(int floor) {
+		if (stops.contains(floor, 1)) {
+			registry.release(floor, 1, id);
+		}
+		if (stops.contains(floor, -1)) {
+			registry.release(floor, -1, id);
+		}
+	}
+
+	/**
+	 * Gets the size of the list
+	 * 
+	 * @return size
+	 */
+	public int getSizeOfListOfTasks() {
+		return stops.size();
 	}
 
 	/**
@@ -125,8 +472,11 @@ public class Monitor {
 	 * @param task
 	 *            The task to be removed
 	 */
-	public synchronized void removeTask(Task task) {
-		list.remove(task);
+	public void removeTask(Task task) {
+		if (stops.remove(task.getFloor(), task.getDirection())
+				&& task.getDirection() != 0) {
+			registry.release(task.getFloor(), task.getDirection(), id);
+		}
 	}
 
 	/**
@@ -134,7 +484,7 @@ public class Monitor {
 	 * 
 	 * @return direction
 	 */
-	public synchronized int getDirection() {
+	public int getDirection() {
 		return direction;
 	}
 
@@ -143,7 +493,7 @@ public class Monitor {
 	 * 
 	 * @param direction
 	 */
-	public synchronized void setDirection(int direction) {
+	public void setDirection(int direction) {
 		this.direction = direction;
 	}
 
@@ -152,7 +502,7 @@ public class Monitor {
 	 * 
 	 * @return -1 if the elevator is moving
 	 */
-	public synchronized int getStoppedOnFloor() {
+	public int getStoppedOnFloor() {
 		return stoppedOnFloor;
 	}
 
@@ -161,15 +511,24 @@ public class Monitor {
 	 * 
 	 * @param stoppedOnFloor
 	 */
-	public synchronized void setStoppedOnFloor(int stoppedOnFloor) {
+	public void setStoppedOnFloor(int stoppedOnFloor) {
 		this.stoppedOnFloor = stoppedOnFloor;
 	}
 
 	/**
 	 * Clears the list
 	 */
-	public synchronized void clearList() {
-		list.clear();
+	public void clearList() {
+		for (int f = 0; f < riders.length; f++) {
+			if (riders[f] != null) {
+				riders[f].clear();
+			}
+		}
+		for (int f = stops.higher(-1, StopSet.UP | StopSet.DOWN); f >= 0; f = stops
+				.higher(f, StopSet.UP | StopSet.DOWN)) {
+			release(f);
+		}
+		stops.clear();
 	}
 
 	/**
@@ -177,7 +536,7 @@ public class Monitor {
 	 * 
 	 * @param stopButtonPressed
 	 */
-	public synchronized void setStopButtonPressed(boolean stopButtonPressed) {
+	public void setStopButtonPressed(boolean stopButtonPressed) {
 		this.stopButtonPressed = stopButtonPressed;
 	}
 
@@ -186,7 +545,7 @@ public class Monitor {
 	 * 
 	 * @return boolean True is the stop button has been pressed
 	 */
-	public synchronized boolean isStopButtonPressed() {
+	public boolean isStopButtonPressed() {
 		return stopButtonPressed;
 	}
 
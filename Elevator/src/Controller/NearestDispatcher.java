@@ -0,0 +1,53 @@
+package Controller;
+
+/**
+ * Chooses the nearest elevator for a hall call. An elevator moving away from
+ * the floor of the call is only chosen if no other elevator is idle or coming
+ * towards it.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public class NearestDispatcher implements DispatchStrategy {
+	private int floors;
+
+	/**
+	 * Creates a dispatcher
+	 * 
+	 * @param floors
+	 *            The number of floors
+	 */
+	public NearestDispatcher(int floors) {
+		this.floors = floors;
+	}
+
+	@Override
+	public int dispatch(CarStatus[] fleet, int floor, int direction) {
+		int best = 1, bestDistance = Integer.MAX_VALUE;
+		for (int i = 1; i < fleet.length; i++) {
+			int distance = floor - fleet[i].getFloor();
+			if (distance * fleet[i].getDirection() < 0) {
+				/*
+				 * moving away
+				 */
+				distance = Math.abs(distance) + floors;
+			} else {
+				distance = Math.abs(distance);
+			}
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public void setVelocity(double velocity) {
+	}
+
+	@Override
+	public String toString() {
+		return "nearest";
+	}
+}
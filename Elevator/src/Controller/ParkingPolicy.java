@@ -0,0 +1,200 @@
+package Controller;
+
+/**
+ * Sends idle elevators to parking floors chosen from the recent demand, so
+ * that the next hall call is likely to find an elevator close by: at the
+ * lobby when most calls come from there, spread over the building when calls
+ * come from everywhere.
+ *
+ * The demand per floor comes from the demand estimator. An elevator that has
+ * been idle for IDLE_TIME is sent to the floor that most lowers the
+ * demand-weighted distance to the nearest idle or parking elevator, or to the
+ * lobby in up-peak traffic, if that lowers the mean distance of a call by at
+ * least MIN_GAIN. An elevator is sent at most once per INTERVAL, and a new
+ * task cancels the parking (see Monitor.park). The state of the elevators is
+ * read once per pass from the status they have last published. Choosing a
+ * floor takes a few passes over the floors, O(floors) per idle elevator.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class ParkingPolicy {
+	/**
+	 * The time in floor travel times an elevator must be idle before it is
+	 * parked
+	 */
+	public static final double IDLE_TIME = 5.0;
+	/**
+	 * The least time in floor travel times between two parkings of an
+	 * elevator
+	 */
+	public static final double INTERVAL = 20.0;
+	/**
+	 * The least reduction in floors of the demand-weighted mean distance of a
+	 * call to the nearest elevator that is worth a parking trip
+	 */
+	public static final double MIN_GAIN = 0.5;
+
+	private Monitor[] monitor;
+	private DemandEstimator estimator;
+	private double[] demand, costs, slope;
+	private long[] idleSince, parkedAt;
+	private boolean[] covered;
+	private int[] near;
+	private CarStatus[] fleet;
+
+	/**
+	 * Creates a parking policy
+	 *
+	 * @param monitor
+	 *            The monitors of the elevators, indexed from 1
+	 * @param estimator
+	 *            The demand estimator
+	 */
+	public ParkingPolicy(Monitor[] monitor, DemandEstimator estimator) {
+		this.monitor = monitor;
+		this.estimator = estimator;
+		int floors = estimator.getFloors();
+		demand = new double[floors];
+		covered = new boolean[floors];
+		near = new int[floors];
+		costs = new double[floors];
+		slope = new double[floors + 1];
+		idleSince = new long[monitor.length];
+		parkedAt = new long[monitor.length];
+		java.util.Arrays.fill(idleSince, -1);
+		java.util.Arrays.fill(parkedAt, Long.MIN_VALUE / 2);
+	}
+
+	/**
+	 * Runs one pass: parks the elevators that have been idle long enough
+	 *
+	 * @param now
+	 *            The simulated time
+	 * @param floorTime
+	 *            The time to travel one floor
+	 * @return the number of elevators sent to park
+	 */
+	public synchronized int park(long now, double floorTime) {
+		for (int f = 0; f < demand.length; f++) {
+			demand[f] = estimator.demand(f, now);
+		}
+		boolean upPeak = estimator.mode(now) == DemandEstimator.UP_PEAK;
+		fleet = Monitor.getStatus(monitor, fleet);
+		int parked = 0;
+		for (int i = 1; i < monitor.length; i++) {
+			if (!fleet[i].isIdle()) {
+				idleSince[i] = -1;
+				continue;
+			}
+			if (idleSince[i] < 0) {
+				idleSince[i] = now;
+			}
+			if (now - idleSince[i] < IDLE_TIME * floorTime
+					|| now - parkedAt[i] < INTERVAL * floorTime) {
+				continue;
+			}
+			int floor = fleet[i].getFloor();
+			int best = upPeak ? 0 : choose(i, floor);
+			if (best != floor) {
+				monitor[i].park(best);
+				if (MainController.verbose) {
+					System.out.println("M parking " + i + " at " + best);
+				}
+				parkedAt[i] = now;
+				idleSince[i] = -1;
+				parked++;
+			}
+		}
+		return parked;
+	}
+
+	/**
+	 * Chooses the parking floor of an elevator: the floor with the least
+	 * demand-weighted distance to the nearest of it and the other idle or
+	 * parking elevators. Stays on its floor unless another floor is clearly
+	 * better.
+	 */
+	private int choose(int number, int floor) {
+		java.util.Arrays.fill(covered, false);
+		for (int j = 1; j < monitor.length; j++) {
+			int f = fleet[j].getParkingFloor();
+			if (f < 0 && j != number && fleet[j].isIdle()) {
+				f = fleet[j].getFloor();
+			}
+			if (j != number && f >= 0 && f < covered.length) {
+				covered[f] = true;
+			}
+		}
+		nearest();
+		costs();
+		int best = floor;
+		double total = 0;
+		for (int f = 0; f < demand.length; f++) {
+			total += demand[f];
+			if (costs[f] < costs[best]) {
+				best = f;
+			}
+		}
+		/*
+		 * no demand, or not worth the trip
+		 */
+		if (total == 0 || (costs[floor] - costs[best]) / total < MIN_GAIN) {
+			return floor;
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the distance from every floor to the nearest covered floor, one
+	 * sweep up and one down
+	 */
+	private void nearest() {
+		int n = near.length, last = -1;
+		for (int f = 0; f < n; f++) {
+			if (covered[f]) {
+				last = f;
+			}
+			near[f] = (last < 0) ? n : f - last;
+		}
+		last = -1;
+		for (int f = n - 1; f >= 0; f--) {
+			if (covered[f]) {
+				last = f;
+			}
+			if (last >= 0 && last - f < near[f]) {
+				near[f] = last - f;
+			}
+		}
+	}
+
+	/**
+	 * Finds the cost of every floor as a parking floor: the demand-weighted
+	 * distance of the calls to the nearest of it and the covered floors. The
+	 * distance of the demand on floor g from a parking floor p is
+	 * min(|p - g|, near[g]), so moving p up one floor changes it by -1 from
+	 * g - near[g] to g and by +1 from g to g + near[g]: the costs are summed
+	 * up from these changes of slope.
+	 */
+	private void costs() {
+		int n = demand.length;
+		java.util.Arrays.fill(slope, 0);
+		double c = 0;
+		for (int g = 0; g < n; g++) {
+			double w = demand[g];
+			if (w == 0 || near[g] == 0) {
+				continue;
+			}
+			c += w * Math.min(g, near[g]);
+			slope[Math.max(0, g - near[g])] -= w;
+			slope[g] += 2 * w;
+			slope[Math.min(n, g + near[g])] -= w;
+		}
+		double s = 0;
+		for (int p = 0; p < n; p++) {
+			costs[p] = c;
+			s += slope[p];
+			c += s;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package Controller;
+
+import java.util.ArrayList;
+
+/**
+ * Moves hall calls that have not been served yet to another elevator when it
+ * is estimated to serve them clearly sooner, e.g. when an elevator next to the
+ * floor of the call has gone idle. The main controller runs a pass
+ * periodically. The estimate is the one of the dispatch strategy, so calls are
+ * only moved by a strategy that estimates times (see CostDispatcher).
+ *
+ * A call is only moved if the estimated time improves by more than the
+ * threshold, both in milliseconds and as a fraction of the current estimate,
+ * and not again before the hold time has passed, so calls do not flip-flop
+ * between elevators. The call is first offered to the new elevator in the
+ * registry, which fails if it has been served meanwhile, and the old owner is
+ * then asked through its mailbox to hand it over. The old owner gives the call
+ * to the new elevator only if it is not already stopping for it, otherwise it
+ * keeps the call and serves it, so a call is never served by both.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class Reassigner {
+	/**
+	 * The default threshold in floor travel times
+	 */
+	public static final double THRESHOLD = 4.0;
+	/**
+	 * The default threshold as a fraction of the current estimate
+	 */
+	public static final double RATIO = 0.3;
+	/**
+	 * The default time in floor travel times a call stays with an elevator
+	 * before it may be moved again
+	 */
+	public static final double HOLD = 10.0;
+	/**
+	 * The period of the passes in floor travel times
+	 */
+	public static final double PERIOD = 2.0;
+
+	private Monitor[] monitor;
+	private HallCallRegistry registry;
+	private CostDispatcher estimator;
+	private CarStatus[] fleet;
+	private double threshold = THRESHOLD, ratio = RATIO, hold = HOLD;
+
+	/**
+	 * Creates a reassigner
+	 *
+	 * @param monitor
+	 *            The monitors of the elevators, indexed from 1
+	 * @param registry
+	 *            The hall call registry
+	 * @param estimator
+	 *            The dispatch strategy, which estimates the time to serve a
+	 *            call
+	 */
+	public Reassigner(Monitor[] monitor, HallCallRegistry registry,
+			CostDispatcher estimator) {
+		this.monitor = monitor;
+		this.registry = registry;
+		this.estimator = estimator;
+	}
+
+	/**
+	 * Sets the thresholds
+	 *
+	 * @param threshold
+	 *            The least improvement in floor travel times
+	 * @param ratio
+	 *            The least improvement as a fraction of the current estimate
+	 * @param hold
+	 *            The time in floor travel times a call stays with an
+	 *            elevator before it may be moved again
+	 */
+	public synchronized void setThresholds(double threshold, double ratio,
+			double hold) {
+		this.threshold = threshold;
+		this.ratio = ratio;
+		this.hold = hold;
+	}
+
+	/**
+	 * Runs one pass over all assigned hall calls
+	 *
+	 * @param now
+	 *            The simulated time
+	 * @return the number of calls offered to another elevator
+	 */
+	public synchronized int reassign(long now) {
+		double floorTime = estimator.getFloorTime();
+		fleet = Monitor.getStatus(monitor, fleet);
+		int moved = 0;
+		ArrayList<HallCallRegistry.HallCall> calls = registry.getCalls(-1);
+		for (int k = 0; k < calls.size(); k++) {
+			HallCallRegistry.HallCall call = calls.get(k);
+			int owner = call.getOwner();
+			if (owner == HallCallRegistry.UNASSIGNED
+					|| call.getOfferedTo() != HallCallRegistry.UNASSIGNED
+					|| now - call.getAssignedTime() < hold * floorTime) {
+				continue;
+			}
+			int floor = call.getFloor(), direction = call.getDirection();
+			double current = estimator.cost(fleet[owner], floor, direction);
+			int best = owner;
+			double bestCost = current;
+			for (int i = 1; i < monitor.length; i++) {
+				if (i != owner) {
+					double cost = estimator.cost(fleet[i], floor, direction);
+					if (cost < bestCost) {
+						bestCost = cost;
+						best = i;
+					}
+				}
+			}
+			double gain = current - bestCost;
+			if (best == owner || gain <= threshold * floorTime
+					|| gain <= ratio * current) {
+				continue;
+			}
+			if (registry.offer(call, best, now) == null) {
+				/*
+				 * served or moved meanwhile
+				 */
+				continue;
+			}
+			if (MainController.verbose) {
+				System.out.println("M moving " + floor + " " + direction
+						+ " from " + owner + " to " + best);
+			}
+			monitor[owner].cancelHallCall(floor, direction);
+			moved++;
+		}
+		return moved;
+	}
+}
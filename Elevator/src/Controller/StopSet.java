@@ -0,0 +1,333 @@
+package Controller;
+
+/**
+ * The stops of one elevator, indexed by floor. Hall calls going up, hall calls
+ * going down and car calls (panel buttons, no direction) are kept in one bitset
+ * each, so adding, finding and removing a stop is O(1) and the next stop above
+ * or below a floor is found one 64-floor word at a time.
+ *
+ * Not synchronized: the stops of an elevator are only changed by its
+ * controller, and the copies published to the main controller are never
+ * changed (see CarStatus).
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class StopSet {
+	/**
+	 * Masks selecting the kinds of stops: hall calls going up, car calls, hall
+	 * calls going down
+	 */
+	public static final int UP = 1, CAR = 2, DOWN = 4, ANY = UP | CAR | DOWN;
+
+	private long[] up = new long[1], car = new long[1], down = new long[1];
+	private int size = 0;
+
+	/**
+	 * Creates an empty set
+	 */
+	public StopSet() {
+	}
+
+	/**
+	 * Creates a copy of a set
+	 *
+	 * @param other
+	 */
+	public StopSet(StopSet other) {
+		up = other.up.clone();
+		car = other.car.clone();
+		down = other.down.clone();
+		size = other.size;
+	}
+
+	/**
+	 * Gets the mask of the stop for a task direction
+	 *
+	 * @param direction
+	 *            1 = up, 0 = no direction (car call), -1 = down
+	 * @return mask
+	 */
+	public static int kindOf(int direction) {
+		return (direction > 0) ? UP : (direction < 0) ? DOWN : CAR;
+	}
+
+	/**
+	 * Adds a stop
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up, 0 = no direction (car call), -1 = down
+	 * @return boolean True if the stop was not there
+	 */
+	public boolean add(int floor, int direction) {
+		if ((floor >> 6) >= up.length) {
+			grow(floor);
+		}
+		long[] bits = bitsOf(direction);
+		long bit = 1L << floor;
+		if ((bits[floor >> 6] & bit) != 0) {
+			return false;
+		}
+		bits[floor >> 6] |= bit;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Checks if there is a stop
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up, 0 = no direction (car call), -1 = down
+	 * @return boolean
+	 */
+	public boolean contains(int floor, int direction) {
+		if (floor < 0 || (floor >> 6) >= up.length) {
+			return false;
+		}
+		return (bitsOf(direction)[floor >> 6] & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Checks if there is a stop of any of the given kinds on the floor
+	 *
+	 * @param floor
+	 * @param kinds
+	 *            UP, CAR, DOWN or a combination of them
+	 * @return boolean
+	 */
+	public boolean containsAny(int floor, int kinds) {
+		if (floor < 0 || (floor >> 6) >= up.length) {
+			return false;
+		}
+		return (word(floor >> 6, kinds) & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Removes a stop
+	 *
+	 * @param floor
+	 * @param direction
+	 *            1 = up, 0 = no direction (car call), -1 = down
+	 * @return boolean True if the stop was there
+	 */
+	public boolean remove(int floor, int direction) {
+		if (!contains(floor, direction)) {
+			return false;
+		}
+		bitsOf(direction)[floor >> 6] &= ~(1L << floor);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all stops on the floor
+	 *
+	 * @param floor
+	 * @return boolean True if any stop was there
+	 */
+	public boolean removeFloor(int floor) {
+		boolean removed = remove(floor, 1);
+		removed |= remove(floor, 0);
+		return remove(floor, -1) | removed;
+	}
+
+	/**
+	 * Gets the lowest floor above the given floor with a stop of any of the
+	 * given kinds
+	 *
+	 * @param floor
+	 *            -1 to search from the bottom floor
+	 * @param kinds
+	 *            UP, CAR, DOWN or a combination of them
+	 * @return floor, -1 if there is none
+	 */
+	public int higher(int floor, int kinds) {
+		int from = floor + 1;
+		int i = from >> 6;
+		if (i >= up.length) {
+			return -1;
+		}
+		long w = word(i, kinds) & (-1L << from);
+		while (w == 0) {
+			if (++i == up.length) {
+				return -1;
+			}
+			w = word(i, kinds);
+		}
+		return (i << 6) + Long.numberOfTrailingZeros(w);
+	}
+
+	/**
+	 * Gets the highest floor below the given floor with a stop of any of the
+	 * given kinds
+	 *
+	 * @param floor
+	 *            Integer.MAX_VALUE to search from the top floor
+	 * @param kinds
+	 *            UP, CAR, DOWN or a combination of them
+	 * @return floor, -1 if there is none
+	 */
+	public int lower(int floor, int kinds) {
+		if (floor <= 0) {
+			return -1;
+		}
+		int to = floor - 1;
+		int i = to >> 6;
+		long w;
+		if (i >= up.length) {
+			i = up.length - 1;
+			w = word(i, kinds);
+		} else {
+			w = word(i, kinds) & (-1L >>> (63 - (to & 63)));
+		}
+		while (w == 0) {
+			if (--i < 0) {
+				return -1;
+			}
+			w = word(i, kinds);
+		}
+		return (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+	}
+
+	/**
+	 * Gets the next stop in SCAN (LOOK) order: the nearest stop ahead in the
+	 * given direction that is served on the way (a car call or a hall call
+	 * going the same way), otherwise the farthest hall call ahead going the
+	 * other way, otherwise the same in the other direction. An idle elevator
+	 * (direction 0) takes the nearest of both directions.
+	 *
+	 * @param floor
+	 *            The floor the elevator is at or has last passed
+	 * @param direction
+	 *            -1 = down 0 = no direction 1 = up
+	 * @return floor, -1 if there are no stops
+	 */
+	public int nextStop(int floor, int direction) {
+		int next;
+		if (direction == 0) {
+			int up = ahead(floor, 1), down = ahead(floor, -1);
+			if (up < 0 || (down >= 0 && floor - down < up - floor)) {
+				next = down;
+			} else {
+				next = up;
+			}
+		} else {
+			next = ahead(floor, direction);
+			if (next < 0) {
+				next = ahead(floor, -direction);
+			}
+		}
+		if (next < 0 && containsAny(floor, ANY)) {
+			next = floor;
+		}
+		return next;
+	}
+
+	/**
+	 * Gets the next stop ahead in the given direction, -1 if there is none
+	 */
+	private int ahead(int floor, int direction) {
+		int next;
+		if (direction > 0) {
+			next = higher(floor, UP | CAR);
+			if (next < 0) {
+				next = lower(Integer.MAX_VALUE, DOWN);
+				if (next <= floor) {
+					next = -1;
+				}
+			}
+		} else {
+			next = lower(floor, DOWN | CAR);
+			if (next < 0) {
+				next = higher(-1, UP);
+				if (next >= floor) {
+					next = -1;
+				}
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Gets the number of floors between the given floors (both included) with
+	 * a stop of any of the given kinds
+	 * 
+	 * @param from
+	 * @param to
+	 *            May be below from
+	 * @param kinds
+	 *            UP, CAR, DOWN or a combination of them
+	 * @return number of floors
+	 */
+	public int count(int from, int to, int kinds) {
+		int lo = Math.max(0, Math.min(from, to));
+		int hi = Math.min((up.length << 6) - 1, Math.max(from, to));
+		int n = 0;
+		for (int i = lo >> 6; i <= (hi >> 6) && lo <= hi; i++) {
+			long w = word(i, kinds);
+			if (i == lo >> 6) {
+				w &= -1L << lo;
+			}
+			if (i == hi >> 6) {
+				w &= -1L >>> (63 - (hi & 63));
+			}
+			n += Long.bitCount(w);
+		}
+		return n;
+	}
+
+	/**
+	 * Gets the number of stops
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if there are no stops
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all stops
+	 */
+	public void clear() {
+		java.util.Arrays.fill(up, 0);
+		java.util.Arrays.fill(car, 0);
+		java.util.Arrays.fill(down, 0);
+		size = 0;
+	}
+
+	private long[] bitsOf(int direction) {
+		return (direction > 0) ? up : (direction < 0) ? down : car;
+	}
+
+	private long word(int i, int kinds) {
+		long w = 0;
+		if ((kinds & UP) != 0) {
+			w |= up[i];
+		}
+		if ((kinds & CAR) != 0) {
+			w |= car[i];
+		}
+		if ((kinds & DOWN) != 0) {
+			w |= down[i];
+		}
+		return w;
+	}
+
+	private void grow(int floor) {
+		int length = (floor >> 6) + 1;
+		up = java.util.Arrays.copyOf(up, length);
+		car = java.util.Arrays.copyOf(car, length);
+		down = java.util.Arrays.copyOf(down, length);
+	}
+}
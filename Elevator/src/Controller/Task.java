@@ -1,7 +1,5 @@
 package Controller;
 
-import java.util.ArrayList;
-
 /**
  * Task object. Contains the necessary information about each task
  * 
@@ -10,12 +8,17 @@ import java.util.ArrayList;
 
 public class Task {
 	private String command;
-	private int floor, direction;
+	private int floor, direction, target;
 
 	public Task(String command, int floor, int direction) {
+		this(command, floor, direction, -1);
+	}
+
+	public Task(String command, int floor, int direction, int target) {
 		this.command = command;
 		this.floor = floor;
 		this.direction = direction;
+		this.target = target;
 	}
 
 	/**
@@ -47,26 +50,12 @@ public class Task {
 	}
 
 	/**
-	 * True if the task already exists in the list given
+	 * The destination of a destination call
 	 * 
-	 * @param list
-	 *            The ArrayList to search through
-	 * @return boolean
+	 * @return int target, -1 if none
 	 */
-	public boolean existsIn(ArrayList<Task> list) {
-
-		if (list.size() == 0) {
-			return false;
-		} else {
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i).getFloor() == floor
-						&& list.get(i).getDirection() == direction) {
-					return true;
-				}
-			}
-			return false;
-		}
-
+	public int getTarget() {
+		return target;
 	}
 
 }
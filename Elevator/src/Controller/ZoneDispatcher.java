@@ -0,0 +1,59 @@
+package Controller;
+
+/**
+ * Divides the building into one zone of consecutive floors per elevator and
+ * gives every hall call to the elevator of its zone. An elevator stopped by
+ * its stop button does not take calls, they go to the nearest other zone.
+ * 
+ * @author Ivan Pedersen, Alfred Andersson
+ * 
+ */
+public class ZoneDispatcher implements DispatchStrategy {
+	private int floors;
+
+	/**
+	 * Creates a dispatcher
+	 * 
+	 * @param floors
+	 *            The number of floors
+	 */
+	public ZoneDispatcher(int floors) {
+		this.floors = floors;
+	}
+
+	/**
+	 * Gets the elevator of the zone of the floor
+	 * 
+	 * @param floor
+	 * @param n
+	 *            The number of elevators
+	 * @return the number of the elevator
+	 */
+	public int zoneOf(int floor, int n) {
+		return Math.min(n, floor * n / floors + 1);
+	}
+
+	@Override
+	public int dispatch(CarStatus[] fleet, int floor, int direction) {
+		int n = fleet.length - 1, zone = zoneOf(floor, n);
+		for (int k = 0; k < 2 * n; k++) {
+			/*
+			 * the zone of the floor, then the zones above and below it
+			 */
+			int i = zone + (((k & 1) == 0) ? k / 2 : -(k + 1) / 2);
+			if (i >= 1 && i <= n && !fleet[i].isStopButtonPressed()) {
+				return i;
+			}
+		}
+		return zone;
+	}
+
+	@Override
+	public void setVelocity(double velocity) {
+	}
+
+	@Override
+	public String toString() {
+		return "zone";
+	}
+}
@@ -14,7 +14,9 @@ import javax.swing.JComponent;
  * Represents a state of components of one elevator, i.e.
  * the motor, the elevator cabin, the door and the scale, and provides methods for inspecting
  * and altering the state.
- * <p>An object with this class holds the following state components:
+ * <p>An object with this class is a thin view of one elevator of the <code>Fleet</code>,
+ * which holds the state of all elevators in arrays. The state consists of the
+ * following components:
  * <ul>
  * <li>The current state of the elevator motor which can be in one of three possible
  * states: (i) stopped, (ii) moving the cabin upwards, (iii) moving the cabin downwards.
@@ -27,55 +29,59 @@ import javax.swing.JComponent;
  * </ul>
  * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
  * @version 1.0
+ * @see     elevator.Fleet
  * @see     elevator.rmi.Elevator
  */
 public class Elevator {
   /**
    * Object used to synchronize updates to the state of the motor of this elevator
+   * (shared with other elevators of the same lock stripe of the fleet)
    */
-  protected Object motorLock = new Object();
+  protected Object motorLock;
   /**
    * Object used to synchronize updates to the state of the door of this elevator
+   * (shared with other elevators of the same lock stripe of the fleet)
    */
-  protected Object doorLock = new Object();
+  protected Object doorLock;
   // private fields
-  private int boxdir = 0;
-  private int doordir = 0;
-  private double boxpos = 0;
-  private int scalepos = 0;
-  private int doorstat = DoorStatus.CLOSED;
+  private Fleet fleet;
+  private int index;
   private int topFloor = 0;
   private int number = 0;
   private JComponent window;
   private JComponent scale;
 /**
  * Constructs an instance of <code>Elevator</code> that represents the elevator
- * with the given number. Sets the position of the elevator cabin at the bottom
- * floor, sets the value of the elevator scale to the bottom floor number.
- * @param number the integer number of the elevator represented by this <code>Elevator</code>
+ * with the given number in the given fleet.
+ * @param fleet the <code>Fleet</code> holding the state of the elevator
+ * @param number the integer number (1, 2, ...) of the elevator represented by this <code>Elevator</code>
  */
-  public Elevator(int number) {
-    scalepos = 0;
-    boxpos = 0.0;
-    this.topFloor = Elevators.topFloor;
+  public Elevator(Fleet fleet, int number) {
+    this.fleet = fleet;
+    this.index = number - 1;
+    this.topFloor = fleet.getTopFloor();
     this.number = number;
+    motorLock = fleet.motorLock(index);
+    doorLock = fleet.doorLock(index);
   }
   /**
    * Sets position of the elevator cabin to the specified double value.
+   * The cabin is stopped there.
    * @param f float position to be set.
    */
   public void Setpos(double f) {
     if(f < 0){
 	System.err.println("In Setpos: Position out of range = " + f);
-	boxpos = 0;
-	return;
+	f = 0;
     }
     if(f > topFloor){
 	System.err.println("In Setpos: Position out of range = " + f);
-	boxpos = topFloor;
-	return;
+	f = topFloor;
+    }
+    synchronized (motorLock) {
+      fleet.halt(index, f, Elevators.clock.currentTimeMillis());
+      fleet.destination[index] = -1;
     }
-    boxpos = f; //still here ?
   }
   /**
    * Sets the state of the door to the specified state
@@ -85,27 +91,44 @@ public class Elevator {
   public void Setdoorstat(int s) {
     if(s < DoorStatus.CLOSED){
 	System.err.println("In Setdoorstat: Doorstatus out of range = " + s);
-	doorstat = DoorStatus.CLOSED;
+	fleet.doorStatus[index] = DoorStatus.CLOSED;
 	return;
     }
     if(s > DoorStatus.OPEN4){
 	System.err.println("In Setdoorstat: Doorstatus out of range = " + s);
-	doorstat = DoorStatus.OPEN4;
+	fleet.doorStatus[index] = DoorStatus.OPEN4;
 	return;
     }
-    doorstat = s; //still here ?
+    fleet.doorStatus[index] = s; //still here ?
   }
   /**
    * Sets the direction of the motor to the specified direction,
    * e.g. moving downwards (-1), moving upwards (1), none = stopped (0).
+   * The cabin starts accelerating (or decelerating) at the current simulated time.
    * @param d an integer code of the direction to be set.
    */
   public void Setdir(int d) {
     if(d < -1 || d > 1){
 	System.err.println("In Setdir: Direction out of range = " + d);
-	boxdir = 0;
-    }else{
-	boxdir = d;
+	d = 0;
+    }
+    synchronized (motorLock) {
+      fleet.setMotor(index, d, Elevators.clock.currentTimeMillis());
+    }
+  }
+  /**
+   * Sends the elevator cabin to the specified floor at the current simulated time.
+   * The cabin moves there, brakes in time and stops exactly at the floor;
+   * a subsequent <code>Setdir</code> or <code>Setpos</code> cancels the trip.
+   * @param f the floor number to go to.
+   */
+  public void Setdest(int f) {
+    if(f < 0 || f > topFloor){
+	System.err.println("In Setdest: Floor out of range = " + f);
+	return;
+    }
+    synchronized (motorLock) {
+      fleet.goTo(index, f, Elevators.clock.currentTimeMillis());
     }
   }
   /**
@@ -116,9 +139,9 @@ public class Elevator {
   public void Setdoor(int d) {
     if(d < -1 || d > 1){
 	System.err.println("In Setdoor: Direction out of range = " + d);
-	doordir = 0;
+	fleet.door[index] = 0;
     }else{
-	doordir = d;
+	fleet.door[index] = d;
     }
   }
   /**
@@ -129,7 +152,7 @@ public class Elevator {
     if(s < 0 || s > topFloor){
 	System.err.println("In Setscale: Scalevalue out of range = " + s);
     }else{
-	scalepos = s;
+	fleet.scale[index] = s;
     }
   }
   /**
@@ -149,11 +172,14 @@ public class Elevator {
     scale = s;
   }
   /**
-   * Returns the current position of the elevator cabin.
+   * Returns the current position of the elevator cabin computed for the current
+   * simulated time.
    * @return the current position of the cabin as a double value in "floor units".
    */
   public double Getpos() {
-    return boxpos;
+    synchronized (motorLock) {
+      return fleet.positionAt(index, Elevators.clock.currentTimeMillis());
+    }
   }
   /**
    * Returns the current state of the door
@@ -161,7 +187,7 @@ public class Elevator {
    * @return the integer code of the current state of the door.
    */
   public int Getdoorstat() {
-    return doorstat;
+    return fleet.doorStatus[index];
   }
   /**
    * Returns the current direction of movement of the elevator cabin (motor), e.g.
@@ -169,7 +195,14 @@ public class Elevator {
    * @return the integer code of the cabin movement direction.
    */
   public int Getdir() {
-    return boxdir;
+    return fleet.motor[index];
+  }
+  /**
+   * Returns the floor the elevator cabin has been sent to with <code>Setdest</code>.
+   * @return the floor number, or -1 if the cabin is not on its way to a floor.
+   */
+  public int Getdest() {
+    return fleet.destination[index];
   }
   /**
    * Returns the current direction of movement of the door, e.g.
@@ -177,14 +210,14 @@ public class Elevator {
    * @return the the integer code of the door movement direction.
    */
   public int Getdoor() {
-    return doordir;
+    return fleet.door[index];
   }
   /**
    * Returns the current position (level) of the elevator scale.
    * @return the the integer value of the current position of the elevator scale.
    */
   public int Getscalepos() {
-    return scalepos;
+    return fleet.scale[index];
   }
   /**
    * Returns the GUI component with the <code>javax.swing.JComponent</code> class used to display
@@ -0,0 +1,703 @@
+package elevator;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Vector;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * The simulation engine of the Elevators application. Owns the "Model" (the
+ * <code>Fleet</code> of elevators) and advances it in fixed time steps in its own
+ * thread, independently of the GUI.
+ * <p>The motion of cabins is continuous in time: the position of a cabin is
+ * computed in closed form from the last command to its motor (see <code>Fleet</code>
+ * and <code>Kinematics</code>), with the cruise velocity of <code>Elevators.step</code>
+ * floor units per time step and, if the "-accel" option is given, a constant
+ * acceleration and deceleration. On each time step the engine computes the positions
+ * of all moving cabins for the current simulated time, stops the cabins which
+ * have reached the bottom or the top floor, moves the doors which are opening
+ * or closing by one "degree of openness", prints positions of moving elevators
+ * to the output stream (standard or socket) and notifies registered
+ * <code>ActionListener</code> objects (observers) that a step has been taken.
+ * The GUI (if any) is just one of the observers: it repaints elevators
+ * at its own rate and never drives the Model, so a busy or a paused GUI does not
+ * affect the simulated elevators. When the Elevators application is started
+ * with the "-headless" option, no GUI is created at all.
+ * <p>The length of a time step (the delay between two steps) is controlled
+ * with the velocity slider of the GUI or set with the <code>setDelay</code> method.
+ * The delay is measured in simulated milliseconds of the <code>SimulationClock</code>,
+ * so the simulation can run faster (or slower) than the real time with the same behaviour.
+ * <p>When the Elevators application is started with the "-discrete" option,
+ * the engine runs in the discrete-event ("skip ahead") mode: rather than
+ * taking every time step, it computes the time of the next event (a cabin crossing
+ * or reaching a floor, a cabin reaching the bottom or the top floor or coming
+ * to a halt, a door becoming completely open or closed) and jumps straight to it,
+ * advancing the Model by many steps at once. In between events the Model is advanced lazily,
+ * i.e. a command or an inspection of the Model first brings the Model up to
+ * the current step (see <code>sync</code>) and then wakes the engine up to
+ * recompute the next event (see <code>wakeUp</code>). Positions are printed
+ * and observers are notified on events only.
+ * <p>When the Elevators application is started with the "-threads n" option,
+ * the fleet is split into <i>n</i> contiguous partitions which are advanced
+ * in parallel on each time step: the engine thread advances the first partition
+ * and <i>n</i> - 1 worker threads advance the others, all meeting at a barrier
+ * before and after the step. Each partition collects the positions to be printed
+ * in its own buffer; the buffers are printed in the partition order after the
+ * step, so the output is the same as with one thread.
+ * <p>When the motion of a cabin changes (a command, a change of the velocity,
+ * a stop at the end of the shaft), or its door or its scale changes, the cabin is
+ * marked as stale, and after the step the engine publishes an immutable
+ * <code>FleetSnapshot</code> of all cabins, which is read without locking
+ * (see <code>getSnapshot</code>) and gives positions for any time. A command only
+ * marks the cabins it changes (see <code>wakeUp(int)</code>), so it costs the same
+ * for any size of the fleet; only the stale cabins are copied from the fleet under
+ * their locks.
+ * <p>Cabin listeners (see <code>addCabinListener</code>) are notified when a cabin
+ * arrives at or passes a floor and when a door becomes completely open or closed,
+ * so controllers need not poll positions and door states.
+ * <p>Batches of commands (see <code>runAtNextStep</code>) are run by the engine
+ * thread at a step boundary, so all commands of a batch take effect in the same step.
+ * @see elevator.Elevators
+ * @see elevator.ElevatorGraphics
+ * @see elevator.SimulationClock
+ * @see elevator.FleetSnapshot
+ * @see elevator.Fleet
+ */
+public class ElevatorEngine extends Thread {
+  // get values of some global variables
+  int numberOfElevators = Elevators.numberOfElevators;
+  int topFloor = Elevators.topFloor;
+  // own
+  private Fleet fleet;
+  private SimulationClock clock;
+  private Vector<ActionListener> listenerList = new Vector<ActionListener>();
+  private Vector<ActionListener> cabinListenerList = new Vector<ActionListener>();
+  private volatile boolean noticing = false; // whether there are cabin listeners
+  private volatile int delay;
+  private volatile boolean frozen = false;
+  private volatile long tick = 0;
+  // discrete-event mode: the step that was current at the anchor time
+  private long anchorTick = 0;
+  private long anchorTime = 0;
+  private boolean wakeUp = true;
+  // parallel mode: partitions of the fleet, the first one is advanced by the caller
+  private Partition[] partitions;
+  private CyclicBarrier startBarrier, endBarrier;
+  private volatile long pending; // the number of steps to advance in the current sweep
+  private volatile double pendingTime; // the simulated time of the current sweep
+  private volatile FleetSnapshot snapshot;
+  // cabins whose motion has changed since the last snapshot
+  private boolean[] stale;
+  private volatile boolean anyStale = false, allStale = true;
+  private ConcurrentLinkedQueue<Submission> submitted = new ConcurrentLinkedQueue<Submission>();
+  /**
+   * Creates the simulation engine for the given elevators, but does not start it.
+   * @param elevators a reference to the object of the Elevators primary class
+   * @param delay the initial length of a time step in simulated milliseconds
+   */
+  public ElevatorEngine(Elevators elevators, int delay) {
+    super("ElevatorEngine");
+    fleet = elevators.fleet;
+    clock = Elevators.clock;
+    this.delay = delay;
+    int threads = Math.max(1, Math.min(Elevators.threads, numberOfElevators));
+    partitions = new Partition[threads];
+    for (int i = 0; i < threads; i++)
+      partitions[i] = new Partition(i, (int)((long)numberOfElevators * i / threads),
+                                    (int)((long)numberOfElevators * (i + 1) / threads));
+    if (threads > 1) {
+      startBarrier = new CyclicBarrier(threads);
+      endBarrier = new CyclicBarrier(threads);
+      for (int i = 1; i < threads; i++) partitions[i].start();
+    }
+    fleet.setVelocity(getVelocity(), clock.currentTimeMillis());
+    stale = new boolean[fleet.size()];
+    publish(tick);
+    clock.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) { // the rate has changed
+        wakeUp();
+      }
+    });
+  }
+  /**
+   * Advances the Model one step at a time at the rate given by the current delay
+   * until the application exits. A step which is late (e.g. because an observer
+   * was slow or the clock runs very fast) is taken immediately, so that the Model
+   * keeps up with the simulated time.
+   */
+  public void run() {
+    if (Elevators.discrete) {
+      runDiscrete();
+      return;
+    }
+    long next = clock.currentTimeMillis();
+    while (true) {
+      synchronized (this) {
+        while (frozen) {
+          try { wait(); } catch (InterruptedException e) {;}
+          if (anyStale) publish(tick);
+          next = clock.currentTimeMillis();
+        }
+      }
+      runSubmitted();
+      step();
+      fireStep();
+      next += delay;
+      try { clock.sleepUntil(next); } catch (InterruptedException e) {;}
+    }
+  }
+  /**
+   * Advances the Model from event to event in the discrete-event mode,
+   * waiting until the time of the next event or until woken up by a command.
+   */
+  private void runDiscrete() {
+    long timeout = 0; // simulated time until the next event, 0 - no event
+    while (true) {
+      boolean advanced;
+      synchronized (this) {
+        if (!wakeUp) {
+          long nanos = clock.toWallNanos(timeout);
+          try {
+            if (timeout == 0) wait();
+            else if (nanos >= 1000000) wait((nanos + 999999) / 1000000); // not before the event
+          } catch (InterruptedException e) {;}
+        }
+        wakeUp = false;
+        while (frozen) {
+          try { wait(); } catch (InterruptedException e) {;}
+          if (anyStale) publish(tick);
+          anchor();
+        }
+        advanced = catchUp();
+        runSubmitted();
+        double next = nextEventTime();
+        if (next == Double.POSITIVE_INFINITY) timeout = 0; // nothing moves, wait for a command
+        else timeout = Math.max(1, (long)Math.ceil(next - clock.currentTimeMillis()));
+      }
+      if (advanced) fireStep();
+      else Thread.yield(); // the next event is less than a real millisecond away
+    }
+  }
+  /**
+   * Runs the given task in the engine thread at the next step boundary, i.e.
+   * before the next time step is taken, and waits until it has been run.
+   * Used to apply a batch of commands so that all of them take effect in the
+   * same step. No step is taken while the simulation is suspended (see
+   * <code>setFrozen</code>), so the wait is bounded: a task which has not been
+   * run within the timeout is withdrawn and never run.
+   * @param task the task to run; it may change the Model without calling
+   * <code>sync</code>, but must call <code>wakeUp</code> if it changes the motion
+   * @param timeout the longest time to wait, in real milliseconds
+   * @return the number of the step at which the task has been run: the number of
+   * steps taken before it
+   * @throws InterruptedException if interrupted while waiting (the task is withdrawn)
+   * @throws TimeoutException if the task has not been run within the timeout
+   */
+  public long runAtNextStep(Runnable task, long timeout)
+      throws InterruptedException, TimeoutException {
+    Submission submission = new Submission(task);
+    submitted.offer(submission);
+    synchronized (this) {
+      wakeUp = true;
+      notifyAll();
+    }
+    boolean interrupted = false;
+    try {
+      if (!submission.done.await(timeout, TimeUnit.MILLISECONDS)
+          && submitted.remove(submission))
+        throw new TimeoutException("No step within " + timeout + " ms");
+    } catch (InterruptedException e) {
+      if (submitted.remove(submission)) throw e;
+      interrupted = true;
+    }
+    while (submission.done.getCount() > 0) { // taken by the engine, done in a moment
+      try {
+        submission.done.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+    if (submission.error != null) throw submission.error;
+    return submission.tick;
+  }
+  /**
+   * Runs the submitted tasks in the order of submission.
+   */
+  private void runSubmitted() {
+    Submission submission;
+    while ((submission = submitted.poll()) != null) {
+      try {
+        submission.task.run();
+      } catch (RuntimeException e) {
+        submission.error = e;
+      } finally {
+        submission.tick = tick;
+        submission.done.countDown();
+      }
+    }
+  }
+  /**
+   * A task waiting to be run at the next step boundary.
+   */
+  private static class Submission {
+    final Runnable task;
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile long tick;
+    volatile RuntimeException error;
+    Submission(Runnable task) {
+      this.task = task;
+    }
+  }
+  /**
+   * Advances all elevators one time step.
+   */
+  public void step() {
+    advanceAll(1, clock.currentTimeMillis());
+    tick++;
+  }
+  /**
+   * In the discrete-event mode, brings the Model up to the current step. Must be
+   * called before the Model is inspected or changed from outside the engine.
+   * Does nothing in the fixed-step mode.
+   */
+  public synchronized void sync() {
+    if (Elevators.discrete) catchUp();
+  }
+  /**
+   * Wakes the engine up to recompute the next event. Must be called after the Model
+   * has been changed from outside the engine (e.g. a motor has been started).
+   * Marks all cabins as stale.
+   */
+  public void wakeUp() {
+    wakeUp(0);
+  }
+  /**
+   * Wakes the engine up to recompute the next event. Must be called after the Model
+   * of the given elevator has been changed from outside the engine. The elevator is
+   * marked as stale, and the engine publishes a new snapshot after its next step
+   * (at once in the discrete-event mode and while the simulation is suspended).
+   * @param number the integer number (1, 2, ...) of the changed elevator, 0 for all
+   */
+  public synchronized void wakeUp(int number) {
+    if (number == 0) allStale = true;
+    else stale[number - 1] = true;
+    anyStale = true;
+    wakeUp = true;
+    notifyAll();
+  }
+  /**
+   * Advances all elevators up to the current time: cabins to their positions at
+   * the current time, doors up to the step which is due according to the time
+   * elapsed since the anchor time.
+   * @return true if the Model has been advanced
+   */
+  private boolean catchUp() {
+    long now = clock.currentTimeMillis();
+    long due = Math.max(tick, anchorTick + (now - anchorTime) / delay);
+    boolean advanced = advanceAll(due - tick, now);
+    tick = due;
+    return advanced;
+  }
+  /**
+   * Advances all elevators the given number of time steps, partition by partition
+   * in parallel if there are several partitions, and prints positions of moving
+   * elevators in the order of elevators. Publishes a new snapshot if the motion
+   * of any cabin has changed.
+   * @param n the number of steps to advance doors
+   * @param time the simulated time to advance cabins to
+   * @return true if any elevator has been advanced
+   */
+  private boolean advanceAll(long n, double time) {
+    boolean moved, changed;
+    if (partitions.length == 1) {
+      moved = partitions[0].sweep(n, time);
+      changed = partitions[0].changed;
+    } else {
+      pending = n;
+      pendingTime = time;
+      await(startBarrier);
+      moved = partitions[0].sweep(n, time);
+      await(endBarrier);
+      changed = false;
+      for (int i = 0; i < partitions.length; i++) {
+        moved |= partitions[i].moved;
+        changed |= partitions[i].changed;
+      }
+    }
+    for (int i = 0; i < partitions.length; i++) {
+      StringBuilder events = partitions[i].events;
+      if (events.length() > 0) {
+        ElevatorIO.out.print(events);
+        events.setLength(0);
+      }
+    }
+    for (int i = 0; i < partitions.length; i++)
+      if (partitions[i].notices.length() > 0) fireCabinEvents(partitions[i].notices);
+    if (changed) anyStale = true;
+    if (anyStale) publish(tick + n); // the step the Model has been advanced to
+    return moved;
+  }
+  /**
+   * Publishes a new snapshot of the fleet, copying only the stale cabins unless
+   * all are stale. Called by the engine when no partition is advancing.
+   * @param tick the step the Model is at
+   */
+  private synchronized void publish(long tick) {
+    boolean all = allStale;
+    allStale = anyStale = false;
+    if (all) snapshot = new FleetSnapshot(fleet, tick);
+    else snapshot = new FleetSnapshot(snapshot, fleet, tick, stale);
+    java.util.Arrays.fill(stale, false);
+  }
+  /**
+   * Returns the latest snapshot of the motion of all elevators. Never blocks.
+   * @return the <code>FleetSnapshot</code>
+   */
+  public FleetSnapshot getSnapshot() {
+    return snapshot;
+  }
+  /**
+   * Waits on the given barrier until all partitions have arrived.
+   */
+  private static void await(CyclicBarrier barrier) {
+    try { barrier.await(); }
+    catch (InterruptedException e) {;}
+    catch (BrokenBarrierException e) {;}
+  }
+  /**
+   * Makes the current step and the current time the anchor for computing
+   * which step is due.
+   */
+  private void anchor() {
+    anchorTick = tick;
+    anchorTime = clock.currentTimeMillis();
+  }
+  /**
+   * Computes the time of the nearest event of all elevators.
+   * @return the simulated time of the next event, or Double.POSITIVE_INFINITY
+   *    if nothing moves
+   */
+  private double nextEventTime() {
+    double now = clock.currentTimeMillis();
+    double next = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < numberOfElevators; i++) {
+      double t = timeOfNextEvent(i, now);
+      if (t < next) next = t;
+    }
+    return next;
+  }
+  /**
+   * Computes the time of the next event of one elevator: the cabin
+   * crosses or reaches a floor, the cabin reaches the bottom or the top floor,
+   * the cabin comes to a halt after the motor has been stopped,
+   * the cabin stops at the floor it has been sent to, the door becomes completely open or closed, the door is stopped.
+   * @param number the index (0, 1, ...) of the elevator
+   * @param now the current simulated time
+   * @return the simulated time of the event, or Double.POSITIVE_INFINITY if nothing moves
+   */
+  protected double timeOfNextEvent(int number, double now) {
+    double next = Double.POSITIVE_INFINITY;
+    synchronized (fleet.motorLock(number)) {
+      if (fleet.isMoving(number)) {
+        double position = fleet.positionAt(number, now);
+        double velocity = fleet.velocityAt(number, now);
+        int dir = (velocity > 0) ? Elevators.UP : (velocity < 0) ? Elevators.DOWN
+                : fleet.motor[number];
+        if (dir == Elevators.UP) {
+          if (position >= topFloor) return now;
+          next = fleet.timeToReach(number, now, Math.floor(position) + 1);
+        } else if (dir == Elevators.DOWN) {
+          if (position <= 0) return now;
+          next = fleet.timeToReach(number, now, Math.ceil(position) - 1);
+        }
+        if (fleet.motor[number] == Elevators.STOP) // comes to a halt
+          next = Math.min(next, fleet.startTime[number] + Kinematics.rampTime(
+              fleet.startVelocity[number], 0.0, fleet.getAcceleration()));
+        else next = Math.min(next, fleet.arrivalTime(number)); // stops at a floor
+      }
+    }
+    int doordir = fleet.door[number];
+    if (doordir != Elevators.STOP) {
+      int stat = fleet.doorStatus[number];
+      long n = (doordir == Elevators.OPEN) ? DoorStatus.OPEN4 - stat : stat - DoorStatus.CLOSED;
+      next = Math.min(next, anchorTime + (tick + Math.max(1, n) - anchorTick) * delay);
+    }
+    return next;
+  }
+  /**
+   * Advances one elevator: moves the cabin to its position at the given time if
+   * it is moving, moves the door the given number of time steps if it is opening or closing.
+   * Stops the cabin when it reaches the bottom or the top floor, or when it comes
+   * to a halt after the motor has been stopped, or exactly at the floor it has been
+   * sent to when the arrival time has come (the scale of such a cabin follows it and
+   * a cabin stopped on its way, e.g. to turn round, goes on). Stops the door when it is completely
+   * open or closed. The new state of the door is computed in one go, as if the door had
+   * been advanced one step at a time.
+   * @param number the index (0, 1, ...) of the elevator to advance
+   * @param n the number of steps to advance the door
+   * @param time the simulated time to advance the cabin to
+   * @param events the buffer to append the new position of the cabin to (if printed)
+   * @param notices the buffer to append cabin events to (see <code>addCabinListener</code>),
+   *    or null if there are no cabin listeners
+   * @return true if the motion of the cabin has changed (the cabin has stopped),
+   *    or its scale or its door has changed
+   */
+  protected boolean advance(int number, long n, double time, StringBuilder events,
+                            StringBuilder notices) {
+    boolean changed = false;
+    int stat, doordir;
+    double where; // the position of the cabin at the given time
+    // to guarantee atomicity of this read-modify-write
+    synchronized (fleet.motorLock(number)) {
+      where = fleet.position[number];
+      if (fleet.isMoving(number)) {
+          double last = fleet.position[number];
+          double position = fleet.positionAt(number, time);
+          double velocity = fleet.velocityAt(number, time);
+          int boxdir = fleet.motor[number];
+          int dest = fleet.destination[number];
+          if (time >= fleet.arrivalTime(number)) { // stops exactly at the floor
+            position = dest;
+            fleet.halt(number, position, time);
+            fleet.destination[number] = -1;
+            changed = true;
+          } else if ((position <= 0.0 && (velocity < 0 || boxdir == Elevators.DOWN))
+              || (position >= topFloor && (velocity > 0 || boxdir == Elevators.UP))
+              || (boxdir == Elevators.STOP && velocity == 0)) {
+            fleet.halt(number, position, time);
+            // has stopped on the way to a floor, e.g. to turn round
+            if (dest >= 0) fleet.goTo(number, dest, time);
+            changed = true;
+          } else fleet.position[number] = position;
+          int floor = (int)Math.round(position);
+          boolean arrived = changed && !fleet.isMoving(number)
+                            && Math.abs(position - floor) < 1e-9;
+          if (dest >= 0 && fleet.scale[number] != floor) {
+            fleet.scale[number] = floor;
+            changed = true;
+          }
+          if (notices != null) { // the floors passed since the last step
+            if (position > last) {
+              for (int f = (int)Math.floor(last) + 1; f <= position; f++)
+                if (!arrived || f != floor) notice(notices, 'c', number, f);
+            } else
+              for (int f = (int)Math.ceil(last) - 1; f >= position; f--)
+                if (!arrived || f != floor) notice(notices, 'c', number, f);
+            if (arrived) notice(notices, 'a', number, floor);
+          }
+          if (Elevators.posOutput)
+            events.append("f ").append(number + 1).append(' ').append(position)
+                  .append(Elevators.EOL);
+          where = position;
+      }
+    }
+    if (n == 0) return changed;
+    // to guarantee atomicity of this read-modify-write
+    synchronized (fleet.doorLock(number)) {
+      doordir = fleet.door[number];
+      if(doordir != Elevators.STOP){
+          stat = fleet.doorStatus[number];
+          int end = (doordir == Elevators.OPEN) ? DoorStatus.OPEN4 : DoorStatus.CLOSED;
+          long toEnd = (end - stat) * doordir;
+          if (notices != null && n >= toEnd && toEnd > 0) // becomes completely open or closed
+            notices.append("d ").append(number + 1).append(' ')
+                   .append(Math.round(where)).append(' ')
+                   .append(doordir).append('\n');
+          if(n > toEnd) { // reaches the end and stops one step later
+              stat = end;
+              doordir = Elevators.STOP;
+          } else stat = stat + (int)(doordir * n);
+          fleet.doorStatus[number] = stat;
+          fleet.door[number] = doordir;
+          changed = true;
+      }
+    }
+    return changed;
+  }
+  /**
+   * Appends a cabin event "<i>kind n f</i>" of the elevator with the given index
+   * to the given buffer.
+   */
+  private static void notice(StringBuilder notices, char kind, int number, int floor) {
+    notices.append(kind).append(' ').append(number + 1).append(' ').append(floor).append('\n');
+  }
+  /**
+   * Notifies all registered cabin listeners of the cabin events collected
+   * in the given buffer, one action event per line, and clears the buffer.
+   */
+  private void fireCabinEvents(StringBuilder notices) {
+    Object[] list = cabinListenerList.toArray();
+    int from = 0;
+    for (int i = notices.indexOf("\n"); i >= 0; i = notices.indexOf("\n", from = i + 1)) {
+      ActionEvent e = new ActionEvent(this, ActionEvent.ACTION_PERFORMED,
+                                      notices.substring(from, i));
+      for (int j = 0; j < list.length; j++)
+        ((ActionListener)list[j]).actionPerformed(e);
+    }
+    notices.setLength(0);
+  }
+  /**
+   * Notifies all registered observers that a time step has been taken.
+   */
+  private void fireStep() {
+    if (listenerList.isEmpty()) return;
+    ActionEvent e = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "t " + tick);
+    Object[] list = listenerList.toArray();
+    for (int i = 0; i < list.length; i++)
+      ((ActionListener)list[i]).actionPerformed(e);
+  }
+  /**
+   * Adds an observer which is notified (in the engine thread) after each time step.
+   * The observer must return quickly as it delays the next step.
+   * @param listener the <code>ActionListener</code> to be added
+   */
+  public void addActionListener(ActionListener listener) {
+    listenerList.addElement(listener);
+  }
+  /**
+   * Removes an observer.
+   * @param listener the <code>ActionListener</code> to be removed
+   */
+  public void removeActionListener(ActionListener listener) {
+    listenerList.removeElement(listener);
+  }
+  /**
+   * Adds a listener which is notified (in the engine thread, after the step in which
+   * the event has happened) of events of cabins and doors. An action command that comes
+   * with an action event is one of the following:
+   * "a <i>n f</i>" - the cabin of the elevator number <i>n</i> has arrived (stopped)
+   * at the floor <i>f</i>; "c <i>n f</i>" - the cabin is passing the floor <i>f</i>
+   * without stopping; "d <i>n f</i> 1" - the door of the elevator standing
+   * at the floor <i>f</i> has become completely open; "d <i>n f</i> -1" - the door
+   * has become completely closed. In the discrete-event mode the events come
+   * at the exact simulated time, otherwise at the first step after the event.
+   * The listener must return quickly as it delays the next step.
+   * @param listener the <code>ActionListener</code> to be added
+   */
+  public void addCabinListener(ActionListener listener) {
+    cabinListenerList.addElement(listener);
+    noticing = true;
+  }
+  /**
+   * Removes a cabin listener.
+   * @param listener the <code>ActionListener</code> to be removed
+   */
+  public void removeCabinListener(ActionListener listener) {
+    cabinListenerList.removeElement(listener);
+    noticing = !cabinListenerList.isEmpty();
+  }
+  /**
+   * Sets the length of a time step.
+   * @param delay the delay between two steps in simulated milliseconds (positive)
+   */
+  public synchronized void setDelay(int delay) {
+    if (delay > 0) {
+      if (Elevators.discrete) catchUp();
+      this.delay = delay;
+      if (!frozen) fleet.setVelocity(getVelocity(), clock.currentTimeMillis());
+      anchor();
+      wakeUp(); // the motion of all cabins has changed
+    }
+  }
+  /**
+   * Returns the length of a time step.
+   * @return the delay between two steps in simulated milliseconds
+   */
+  public int getDelay() {
+    return delay;
+  }
+  /**
+   * Returns the (cruise) velocity of elevators in "floor units" per simulated millisecond
+   * which follows from the precision of the model and the length of a time step.
+   * @return the double velocity of elevators
+   */
+  public double getVelocity() {
+    return Elevators.step / delay;
+  }
+  /**
+   * Returns the number of time steps taken since the engine has started.
+   * @return the current step number
+   */
+  public long getTick() {
+    return tick;
+  }
+  /**
+   * Suspends (<code>true</code>) or resumes (<code>false</code>) the simulation.
+   * @param frozen whether to suspend the simulation
+   */
+  public synchronized void setFrozen(boolean frozen) {
+    if (Elevators.discrete && frozen && !this.frozen) catchUp();
+    this.frozen = frozen;
+    // a suspended cabin stops (or decelerates) as if the velocity was set to 0
+    fleet.setVelocity(frozen ? 0.0 : getVelocity(), clock.currentTimeMillis());
+    if (Elevators.discrete) anchor();
+    allStale = anyStale = true; // published by the engine
+    notifyAll();
+  }
+  /**
+   * Checks whether the simulation is suspended.
+   * @return true if the simulation is suspended
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+  /**
+   * A contiguous range of elevators of the fleet advanced by one thread.
+   */
+  private class Partition extends Thread {
+    private int from, to;
+    private StringBuilder events = new StringBuilder();
+    private StringBuilder notices = new StringBuilder();
+    private boolean moved; // whether the last sweep has advanced any elevator
+    private boolean changed; // whether the last sweep has changed motion of any cabin
+    Partition(int index, int from, int to) {
+      super("ElevatorEngine-" + index);
+      this.from = from;
+      this.to = to;
+      setDaemon(true);
+    }
+    /**
+     * Advances the elevators of this partition which are moving.
+     * @return true if any elevator has been advanced
+     */
+    boolean sweep(long n, double time) {
+      boolean moved = false, changed = false;
+      int[] door = fleet.door;
+      StringBuilder notices = (noticing) ? this.notices : null;
+      for (int i = from; i < to; i++)
+        if (fleet.isMoving(i) || door[i] != Elevators.STOP) {
+          if (advance(i, n, time, events, notices)) {
+            stale[i] = true;
+            changed = true;
+          }
+          moved = true;
+        }
+      this.changed = changed;
+      return this.moved = moved;
+    }
+    /**
+     * Advances this partition on each sweep of the engine.
+     */
+    public void run() {
+      while (true) {
+        await(startBarrier);
+        sweep(pending, pendingTime);
+        await(endBarrier);
+      }
+    }
+  }
+}
@@ -31,7 +31,9 @@ public class ElevatorEvents extends WindowAdapter implements ActionListener {
    * (either standard output of a socket output stream). An action command of a floor
    * button is "b <i>f d</i>" (where "b" stands for "button", <i>f</i> is the number
    * of the floor where the button was pressed, <i>d</i> is a direction (upwards or downwards)
-   * assigned with the button. An action command of a inside button is
+   * assigned with the button. In the destination dispatch mode, an action command
+   * of a floor keypad is "t <i>f g</i>", where <i>g</i> is the floor chosen to go to.
+   * An action command of a inside button is
    * "p <i>n f</i>" (where "p" stands for "panel", <i>n</i> is the number
    * of the elevator where the button was pressed, <i>f</i> is a floor number
    * assigned with the button.
@@ -17,13 +17,14 @@ import javax.swing.event.ChangeListener;
  */
  /**
   * Provides GUI for the Elevators application. The "View" part of the MVC application.
-   * Receives action events from the application timer (clock) which generates the events
-   * at a predefined rate controlled with the special JSlider gauge.
-   * On each action event (time step), the ElevatorGUI object calls the ElevatorGraphics
+   * Receives action events from the animation timer which generates the events
+   * at a fixed rendering rate.
+   * On each action event, the ElevatorGUI object calls the ElevatorGraphics
    * object to perform an animation step, i.e. to inspect the status of the Model
    * (all elevators: motors, doors and scales) and to display
    * a new state (by repainting the ElevatorCanvas) if the state has changed
-   * since the previous step.
+   * since the previous step. The Model is advanced by the ElevatorEngine
+   * at a rate (velocity of elevators) controlled with the special JSlider gauge.
   */
 
 public class ElevatorGUI extends JFrame implements ActionListener, ChangeListener {
@@ -35,12 +36,17 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
    * An array of "arrow down" floor buttons
    */
   public static JButton[] arrowDownButton;
+  /**
+   * An array of destination call buttons (in the destination dispatch mode,
+   * instead of the arrow buttons)
+   */
+  public static JButton[] destinationButton;
   /**
    * An array of inside panel buttons
    */
   public static JButton[][] insideButton;
   /**
-   * Slider used to control elevators' velocity (delay of the Timer)
+   * Slider used to control elevators' velocity (length of a time step of the ElevatorEngine)
    */
   public static JSlider speedSlider;
   /**
@@ -49,21 +55,19 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
    */
   public static ElevatorIO io;
   /**
-   * The application timer services as a clock that generates action events at a predefined rate
-   * controlled with the JSlider gauge.
-   * On each action event (time step), the ElevatorGUI object calls the ElevatorGraphics
+   * The animation timer generates action events at a fixed rendering rate.
+   * On each action event, the ElevatorGUI object calls the ElevatorGraphics
    * object to perform an animation step, i.t. to inspect the status of the Model
    * (all elevators: motors, doors and scales) and to display a new state
    * (by repainting the ElevatorCanvas)
    *  if the state has changed since the previous stemp.
+   * The timer does not advance the Model, see <code>ElevatorEngine</code>.
    */
   public static Timer timer;
 
   Elevators elevators;
   ElevatorGraphics graphics;
   boolean animateAllAtOnce = true; // animate all elevators at time tick
-  boolean frozen = true;
-  boolean first = true;
   int number = 0; // number of an elevator to animate
   // get gloval variables
   int numberOfElevators = Elevators.numberOfElevators;
@@ -74,11 +78,15 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
    */
   public static final int SLIDER_INIT = 50;
   /**
-   * Timer delay step
+   * Delay of the animation timer (the rendering period) in milliseconds.
+   */
+  public static final int RENDER_DELAY = 40;
+  /**
+   * Engine delay step
    */
   public static int delayStep = 5;
   /**
-   * Timer delay value. Initialized to (101 - SLIDER_INIT) * delayStep.
+   * Engine delay value (the length of a time step in simulated milliseconds). Initialized to (101 - SLIDER_INIT) * delayStep.
    * Computed as (101- value_of_slider) * delayStep
    */
   private static int delay = (101 - SLIDER_INIT) * delayStep;
@@ -94,7 +102,7 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
    * creates an array of objects with the ElevatorCanvas class used to display
    * elevators,
    * creates and starts the Timer object that clocks animation in the
-   * ElevatorGraphics object,
+   * ElevatorGraphics object (the ElevatorEngine is started by Elevators),
    * creates a object with the ElevatorIO class to handle application input/output
    * via standard input/output or TCP sockets or/and Java RMI in separate threads.
    */
@@ -117,6 +125,7 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
     insideButton = new JButton[numberOfElevators + 1][numberOfFloors + 1];
     arrowUpButton = new JButton[numberOfFloors + 1];
     arrowDownButton = new JButton[numberOfFloors + 1];
+    destinationButton = new JButton[numberOfFloors + 1];
     // load images (ArrowUp.gif and ArrowDown.gif) for floor buttons
     boolean imageButton = true;
     ImageIcon arrowUpButtonIcon = null,
@@ -199,6 +208,15 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
       p3 = new JPanel(); // floor panel
       p3.setBorder(BorderFactory.createRaisedBevelBorder());
       p3.add(new JLabel((i == 0)? "BV" : String.valueOf(i)));
+      if (Elevators.destinationDispatch) {
+        // a destination keypad: choose the floor to go to, then press "Go"
+        jbutton = destinationButton[i] = new JButton("Go");
+        jbutton.addActionListener(listener);
+        p3.add(keypad(i, jbutton));
+        p3.add(jbutton);
+        p2.add(p3);
+        continue;
+      }
       if (i > 0) {
         if (imageButton) {
           jbutton = arrowDownButton[i] = new JButton(arrowDownButtonIcon);
@@ -241,18 +259,17 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
     p1.add(p2);
     contentPane.add(p1, "East"); // add floor controls panel
     //Set up a timer that calls this object's action handler.
-    timer = new Timer(delay, this);
-    timer.setInitialDelay(delay);
+    timer = new Timer(RENDER_DELAY, this);
+    timer.setInitialDelay(RENDER_DELAY);
     System.err.println("Starting UI and IO");
     pack();
-    if (delay > 0) startAnimation();
+    startAnimation();
     setVisible(true);
     io.setPriority(io.getPriority() + 1);
     io.start();
   }
   /**
-   * Invoked from the Timer object (that services as a clock)
-   * with a predefined rate controlled with a JSlider guage
+   * Invoked from the Timer object at the rendering rate
    */
   public void actionPerformed(ActionEvent e) { // from the timer
     if (animateAllAtOnce) graphics.animateAll();
@@ -263,9 +280,9 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
     }
   }
   /**
-   * Gets a new value from the JSlider gauge used to control the Timer rate,
-   * computes and sets a new rate to the Timer and restarts the Timer with the new
-   * rate. Invoked when the Timer rate is changed with the JSlider gauge.
+   * Gets a new value from the JSlider gauge used to control the velocity of elevators,
+   * computes and sets a new length of a time step to the ElevatorEngine.
+   * Invoked when the velocity is changed with the JSlider gauge.
    */
   public void stateChanged(ChangeEvent e) {
     JSlider source = (JSlider)e.getSource();
@@ -274,30 +291,43 @@ public class ElevatorGUI extends JFrame implements ActionListener, ChangeListene
       delay = (101 - value) * delayStep;
       velocity = (double)(Elevators.step / delay);
       io.out.println("v " + velocity);
-      if (delay == 0) {
-        if (!frozen) stopAnimation();
-      } else {
-        timer.setDelay(delay);
-        timer.setInitialDelay(delay);
-        if (first) startAnimation();
-        else restartAnimation();
-      }
+      Elevators.engine.setDelay(delay);
     }
   }
   public void startAnimation() {
     //Start timer!
     timer.start();
-    frozen = false;
-    first = false;
   }
-  public void stopAnimation() {
-    //Stop timer!
-    timer.stop();
-    frozen = true;
+  /**
+   * Creates the keypad of the floor <i>f</i>: a combo box with the other floors,
+   * which keeps the action command of the "Go" button in step with the chosen floor.
+   * The combo box is raw, generic <code>JComboBox</code> needs Java 7.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private JComboBox keypad(int floor, JButton button) {
+    JComboBox destinations = new JComboBox();
+    destinations.addActionListener(new DestinationSelector(floor, button));
+    for (int j = 0; j < numberOfFloors; j++)
+      if (j != floor) destinations.addItem((j == 0)? "BV" : String.valueOf(j));
+    return destinations;
   }
-  public void restartAnimation() {
-    //Restart timer!
-    timer.restart();
-    frozen = false;
+  /**
+   * Keeps the action command of a destination call button ("t <i>f g</i>")
+   * in step with the floor chosen in the keypad of the floor <i>f</i>.
+   */
+  static class DestinationSelector implements ActionListener {
+    private int floor;
+    private JButton button;
+    DestinationSelector(int floor, JButton button) {
+      this.floor = floor;
+      this.button = button;
+    }
+    @SuppressWarnings("rawtypes")
+    public void actionPerformed(ActionEvent e) {
+      int index = ((JComboBox)e.getSource()).getSelectedIndex();
+      if (index < 0) return;
+      int destination = (index < floor) ? index : index + 1;
+      button.setActionCommand("t " + floor + " " + destination);
+    }
   }
-}
\ No newline at end of file
+}
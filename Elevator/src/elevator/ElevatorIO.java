@@ -6,6 +6,8 @@ import java.util.StringTokenizer;
 import java.rmi.RMISecurityManager;
 import java.rmi.Naming;
 import elevator.rmi.IllegalParamException;
+import elevator.rmi.CommandBatch;
+import elevator.rmi.FleetState;
 import elevator.rmi.GetAll;
 import elevator.rmi.impl.GetAllImpl;
 import elevator.ElevatorGUI;
@@ -31,6 +33,11 @@ public class ElevatorIO extends Thread {
   int numberOfElevators = Elevators.numberOfElevators;
   int numberOfFloors = Elevators.numberOfFloors;
   int topFloor = Elevators.topFloor;
+    /**
+     * The longest time in real milliseconds a batch of commands waits for
+     * the engine (see <code>submit</code>)
+     */
+  public final static long SUBMIT_TIMEOUT = 5000;
     /**
      * The buffering character-input stream (BufferedReader) for reading char and String
      * from the input stream of the standard "input" or a TCP socket. Used for reading
@@ -45,6 +52,7 @@ public class ElevatorIO extends Thread {
      */
   protected static PrintStream out = System.out;
   private Elevator[] allElevators;
+  private ElevatorEngine engine;
 /**
  * Creates an instance of ElevatorIO that opens a TCP socket and waits until
  * a client (a controller) connects if Elevators has started with the "-tcp" option, it
@@ -57,6 +65,7 @@ public class ElevatorIO extends Thread {
   public ElevatorIO(Elevators elevators) {
     super();
     this.allElevators = elevators.allElevators;
+    this.engine = Elevators.engine;
     if (Elevators.tcp) connectToClient(Elevators.inPort, Elevators.outPort);
     if (Elevators.rmi) {
       try {
@@ -108,8 +117,9 @@ public class ElevatorIO extends Thread {
    * command is read from the stream.
    */
   public void run() {
-    // give some time for GUI to start up
-    try { sleep(3000); } catch (Exception e) {;}
+    // give some time for GUI to start up (real time, as GUI is not simulated)
+    if (!Elevators.headless)
+      try { sleep(3000); } catch (Exception e) {;}
     readInput();
   }
   // just to remember
@@ -119,6 +129,7 @@ public class ElevatorIO extends Thread {
   private final static String[] commands  = {
     "q", "quit",
     "m", "move",
+    "g", "goto",
     "d", "door",
     "s", "scale",
     "w", "where",
@@ -167,6 +178,11 @@ public class ElevatorIO extends Thread {
             motor(elevatorNumber, value);
             continue;
         }
+        if ((tokens[0].equalsIgnoreCase("g") || tokens[0].equalsIgnoreCase("goto"))
+              && tokens[1] != null && tokens[2] != null) {
+            goTo(elevatorNumber, value);
+            continue;
+        }
         if ((tokens[0].equalsIgnoreCase("s") || tokens[0].equalsIgnoreCase("scale"))
               && tokens[1] != null && tokens[2] != null) {
           scale(elevatorNumber, value);
@@ -183,7 +199,7 @@ public class ElevatorIO extends Thread {
           continue;
         }
         if (tokens[0].equalsIgnoreCase("v") || tokens[0].equalsIgnoreCase("velocity")) {
-          out.println("v " + ElevatorGUI.velocity);
+          out.println("v " + Elevators.engine.getVelocity());
           continue;
         }
         System.err.println("Illegal command: " + input);
@@ -212,6 +228,7 @@ public class ElevatorIO extends Thread {
       System.err.println("Motor: direction " + val + " doesn't exist");
       return;
     }
+    engine.sync();
     if(number == 0)
       for(int i = numberOfElevators - 1; i >= 0; i--)
         synchronized (allElevators[i].motorLock) {
@@ -221,6 +238,35 @@ public class ElevatorIO extends Thread {
       synchronized (allElevators[number - 1].motorLock) {
         allElevators[number - 1].Setdir(val);
       }
+    engine.wakeUp(number);
+  }
+  /**
+   * Executes a "g" ("goto") control command read from standard or socket input stream:
+   * sends the elevator to the given floor where it stops exactly.
+   * @param number the integer number of the elevator to send, 0 to send all elevators
+   * @param floor the integer number of the floor to go to
+   */
+  // used by TCP and standard IO
+  public void goTo(int number, int floor) {
+    if(number < 0 || number > numberOfElevators) {
+      System.err.println("GoTo: Elevatornumber " + number + " doesn't exist");
+      return;
+    }
+    if( floor > topFloor || floor < 0) {
+      System.err.println("GoTo: Floor number " + floor + " doesn't exist");
+      return;
+    }
+    engine.sync();
+    if(number == 0)
+      for(int i = numberOfElevators - 1; i >= 0; i--)
+        synchronized (allElevators[i].motorLock) {
+          allElevators[i].Setdest(floor);
+        }
+    else
+      synchronized (allElevators[number - 1].motorLock) {
+        allElevators[number - 1].Setdest(floor);
+      }
+    engine.wakeUp(number);
   }
   /**
    * Executes a "s" ("scale") control command read from standard or socket input stream:
@@ -238,11 +284,13 @@ public class ElevatorIO extends Thread {
       System.err.println("Scale: Floor number " + val + " doesn't exist");
       return;
     }
+    engine.sync();
     if(number == 0)
       for(int i = 0; i < numberOfElevators; i++)
           allElevators[i].Setscalepos(val);
     else
         allElevators[number - 1].Setscalepos(val);
+    engine.wakeUp(number);
   }
   /**
    * Executes a "d" ("door") control command read from standard or socket input stream:
@@ -260,6 +308,7 @@ public class ElevatorIO extends Thread {
       System.err.println("Door: direction " + val + " doesn't exist");
       return;
     }
+    engine.sync();
     if(number == 0)
       for(int i = 0; i < numberOfElevators; i++)
         synchronized (allElevators[i].doorLock) {
@@ -269,6 +318,7 @@ public class ElevatorIO extends Thread {
       synchronized (allElevators[number - 1].doorLock) {
         allElevators[number - 1].Setdoor(val);
       }
+    engine.wakeUp(number);
   }
   // used by TCP and standard IO
   /**
@@ -285,11 +335,13 @@ public class ElevatorIO extends Thread {
       System.err.println("Where: Elevatornumber " + number + " doesn't exist");
       return;
     }
-    if(number == 0)
+    FleetSnapshot snapshot = engine.getSnapshot();
+    if(number == 0) {
+      double[] position = snapshot.getPositions();
       for(int i = 0; i < numberOfElevators; i++)
-        out.println("f " + (i + 1) + " " + allElevators[i].Getpos());
-    else
-      out.println("f " + number + " " + allElevators[number - 1].Getpos());
+        out.println("f " + (i + 1) + " " + position[i]);
+    } else
+      out.println("f " + number + " " + snapshot.getPosition(number - 1));
   }
   // used by RMI
   /**
@@ -309,6 +361,7 @@ public class ElevatorIO extends Thread {
       throw new IllegalParamException();
     if( val > Elevators.UP || val < Elevators.DOWN)
       throw new IllegalParamException();
+    engine.sync();
     if(number == 0)
       for(int i = numberOfElevators - 1; i >= 0; i--)
         synchronized (allElevators[i].motorLock) {
@@ -318,6 +371,37 @@ public class ElevatorIO extends Thread {
       synchronized (allElevators[number - 1].motorLock) {
         allElevators[number - 1].Setdir(val);
       }
+    engine.wakeUp(number);
+  }
+  // used by RMI
+  /**
+   * Executes a "g" ("goto") control command accepted on an remote interface
+   * used to control elevators such as Elevator and Elevators.
+   * Called by an RMI servant that implements one of these interface.
+   * Sends the elevator to the given floor. The simulator moves the cabin there
+   * and stops it exactly at the floor, so the caller needs neither to poll
+   * the position nor to stop the motor.
+   * @param number the integer number of the elevator to send, 0 to send all elevators
+   * @param floor the integer number of the floor to go to
+   * @throws IllegalParamException if number is not a legal elevator number
+   * or/and floor is not a legal floor number
+   */
+  public void goToRMI(int number, int floor) throws IllegalParamException {
+    if(number < 0 || number > numberOfElevators)
+      throw new IllegalParamException();
+    if( floor > topFloor || floor < 0)
+      throw new IllegalParamException();
+    engine.sync();
+    if(number == 0)
+      for(int i = numberOfElevators - 1; i >= 0; i--)
+        synchronized (allElevators[i].motorLock) {
+          allElevators[i].Setdest(floor);
+        }
+    else
+      synchronized (allElevators[number - 1].motorLock) {
+        allElevators[number - 1].Setdest(floor);
+      }
+    engine.wakeUp(number);
   }
   // used by RMI
   /**
@@ -335,9 +419,11 @@ public class ElevatorIO extends Thread {
       throw new IllegalParamException();
     if( val > topFloor || val < 0)
       throw new IllegalParamException();
+    engine.sync();
     if(number == 0)
       for(int i = 0; i < numberOfElevators; i++) allElevators[i].Setscalepos(val);
     else allElevators[number - 1].Setscalepos(val);
+    engine.wakeUp(number);
   }
   // used by RMI
   /**
@@ -355,6 +441,7 @@ public class ElevatorIO extends Thread {
       throw new IllegalParamException();
     if( val > Elevators.OPEN || val < Elevators.CLOSE)
       throw new IllegalParamException();
+    engine.sync();
     if(number == 0)
       for(int i = 0; i < numberOfElevators; i++)
         synchronized (allElevators[i].doorLock) {
@@ -364,6 +451,102 @@ public class ElevatorIO extends Thread {
       synchronized (allElevators[number - 1].doorLock) {
         allElevators[number - 1].Setdoor(val);
       }
+    engine.wakeUp(number);
+  }
+  // used by RMI
+  /**
+   * Executes a batch of motor, door, scale and "goto" commands accepted on the
+   * Elevators remote interface. Called by an RMI servant that implements
+   * <code>Elevators.submit</code>.
+   * All commands are checked first as by <code>motorRMI</code>, <code>doorRMI</code>,
+   * <code>scaleRMI</code> and <code>goToRMI</code>, and none of them is executed
+   * if any is illegal. Then the whole batch is executed by the engine at the next
+   * step boundary, in the order of commands, and the number of that step is
+   * returned to the calling thread. A batch is rejected without waiting while
+   * the simulation is suspended, and is withdrawn if the engine has not taken
+   * it within <code>SUBMIT_TIMEOUT</code>, so the calling thread is never held
+   * for long.
+   * @param batch the batch of commands
+   * @return the number of the step from which the commands take effect
+   * @throws IllegalParamException if the batch is <code>null</code> or holds more
+   * than <code>CommandBatch.MAX_SIZE</code> commands, or any command has an
+   * illegal elevator number, floor or code
+   * @throws java.rmi.RemoteException if the simulation is suspended, or the batch
+   * has timed out, or interrupted while waiting for the engine; no command has
+   * been executed then
+   */
+  public long submit(final CommandBatch batch) throws java.rmi.RemoteException {
+    if (batch == null || batch.size() > CommandBatch.MAX_SIZE)
+      throw new IllegalParamException();
+    for (int i = 0; i < batch.size(); i++) {
+      int number = batch.getNumber(i), val = batch.getValue(i);
+      if (number < 0 || number > numberOfElevators)
+        throw new IllegalParamException();
+      switch (batch.getKind(i)) {
+        case CommandBatch.MOTOR:
+          if (val > Elevators.UP || val < Elevators.DOWN)
+            throw new IllegalParamException();
+          break;
+        case CommandBatch.DOOR:
+          if (val > Elevators.OPEN || val < Elevators.CLOSE)
+            throw new IllegalParamException();
+          break;
+        case CommandBatch.SCALE:
+        case CommandBatch.GOTO:
+          if (val > topFloor || val < 0)
+            throw new IllegalParamException();
+          break;
+        default:
+          throw new IllegalParamException();
+      }
+    }
+    if (engine.isFrozen())
+      throw new java.rmi.RemoteException("The simulation is suspended");
+    try {
+      return engine.runAtNextStep(new Runnable() {
+        public void run() {
+          apply(batch);
+        }
+      }, SUBMIT_TIMEOUT);
+    } catch (java.util.concurrent.TimeoutException e) {
+      throw new java.rmi.RemoteException("The batch has not been taken by the engine in time");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new java.rmi.RemoteException("Interrupted while waiting for the engine");
+    }
+  }
+  /**
+   * Executes a checked batch of commands. Called by the engine thread at a step
+   * boundary, so the Model is up to date.
+   */
+  private void apply(CommandBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      int number = batch.getNumber(i), val = batch.getValue(i);
+      int from = (number == 0) ? 0 : number - 1;
+      int to = (number == 0) ? numberOfElevators : number;
+      for (int k = from; k < to; k++)
+        switch (batch.getKind(i)) {
+          case CommandBatch.MOTOR:
+            synchronized (allElevators[k].motorLock) {
+              allElevators[k].Setdir(val);
+            }
+            break;
+          case CommandBatch.GOTO:
+            synchronized (allElevators[k].motorLock) {
+              allElevators[k].Setdest(val);
+            }
+            break;
+          case CommandBatch.SCALE:
+            allElevators[k].Setscalepos(val);
+            break;
+          case CommandBatch.DOOR:
+            synchronized (allElevators[k].doorLock) {
+              allElevators[k].Setdoor(val);
+            }
+            break;
+        }
+      engine.wakeUp(number);
+    }
   }
   // used by RMI
   /**
@@ -381,7 +564,7 @@ public class ElevatorIO extends Thread {
   public double whereIs(int number) throws IllegalParamException {
     if( number <= 0 || number > numberOfElevators)
       throw new IllegalParamException();
-    return allElevators[number - 1].Getpos();
+    return engine.getSnapshot().getPosition(number - 1);
   }
   // used by RMI
   /**
@@ -389,16 +572,15 @@ public class ElevatorIO extends Thread {
    * accepted on an remote interface used to control motors such as Motors and Elevators.
    * Called by an RMI servant that implements one of these interface and by
    * PositionListener objects (if any).
-   * Returns current positions of all elevators to the calling thread.
+   * Returns current positions of all elevators to the calling thread. The positions
+   * are taken from the latest snapshot of the engine, so they are coherent (all as
+   * of the same time step) and reading them never blocks the engine.
    * @return an array of floatint point values of positions of the elevator in "floor units" (e.g.
    * 2.5 "floor units means that the elevator is exactly in between the 2nd and
    * 3rd floor)
    */
   public double[] whereAre() throws IllegalParamException {
-    double[] position = new double[numberOfElevators];
-    for (int i = 0; i < numberOfElevators; i++)
-      position[i] = allElevators[i].Getpos();
-    return position;
+    return engine.getSnapshot().getPositions();
   }
   /**
    * Returns a current value of a scale.
@@ -415,6 +597,31 @@ public class ElevatorIO extends Thread {
       throw new IllegalParamException();
     return allElevators[number - 1].Getscalepos();
   }
+  // used by RMI
+  /**
+   * Returns the state of all elevators: positions of cabins, directions of
+   * motors, states and movements of doors and scale positions.
+   * Called by RMI servants that implement <code>getFleetState</code> of the
+   * GetAll and Elevators interfaces. All values are taken from the latest
+   * snapshot of the engine and the sequence number is the step of that snapshot,
+   * so they are coherent. Positions are those of the motion of the snapshot at
+   * the current simulated time; nothing but the positions changes until the
+   * next snapshot.
+   * @param state the state to fill, or null to create a new one
+   * @return the state (<code>state</code> if it is not null)
+   */
+  public FleetState getFleetState(FleetState state) {
+    FleetSnapshot snapshot = engine.getSnapshot();
+    double now = Elevators.clock.currentTimeMillis();
+    int size = snapshot.size();
+    if (state == null) state = new FleetState(size);
+    else state.resize(size);
+    state.setSequence(snapshot.getTick());
+    for (int i = 0; i < size; i++)
+      state.set(i + 1, snapshot.getPosition(i, now), snapshot.getMotor(i),
+          snapshot.getDoorStatus(i), snapshot.getDoor(i), snapshot.getScale(i));
+    return state;
+  }
 }
 /**
  * Creates a server socket and waits for a client (controller) to connect, when
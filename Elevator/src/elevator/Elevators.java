@@ -25,12 +25,14 @@ import java.io.*;
  * <p>The application provide the "View" and the "Model" parts. The "controller"
  * part can be connected to the application via standard input/output, TCP sockets
  * or/and Java RMI.
- * <p>The application performs an animation of elevators at a predefined rate
- * set to the application Timer which starts after the application GUI ("view") is created.
- * The Timer clocks the animation. On each time step, the "view" part of the
+ * <p>The "model" part is advanced in time steps by the simulation engine
+ * (<code>ElevatorEngine</code>) in its own thread at a rate controlled with the
+ * velocity slider of the GUI. The GUI ("view") observes the model at a fixed
+ * rendering rate of the application Timer: on each time step of the Timer, the "view" part of the
  * application inspects a state of the "model" part (elevator positions, direction
  * of movement, door sates, value of scales) and displays a new state if the state
- * of the model has changed since the previous time step.
+ * of the model has changed since the previous time step. The application can also
+ * run without GUI at all (the "-headless" option), e.g. on a server without a display.
  * <p>The "controller" part is not provided except of some input to the controller:
  * action events from floor and inside buttons and current positions of elevators.
  * The controller can get the input from the standard output of Elevators, a TCP socket
@@ -58,10 +60,14 @@ import java.io.*;
  * or without values:
  * <p>
  * <center><table border="1">
- * <tr><td><code>-number int</code><td>The number of elevators</tr>
+ * <tr><td><code>-number int</code><td>The number of elevators, at most
+ *                                  <code>MaxNumberOfElevators</code> with the GUI
+ *                                  and <code>MaxHeadlessNumberOfElevators</code> without</tr>
  * <tr><td><code>-top int</code><td>The number of the top floor.
  *                                  The number of floors is the number of
- *                                  the top floor plus one (ground floor)</tr>
+ *                                  the top floor plus one (ground floor). At most
+ *                                  <code>MaxTopFloor</code> with the GUI
+ *                                  and <code>MaxHeadlessTopFloor</code> without</tr>
  * <tr><td><code>-tcp</code><td>Forces the application to open a TCP socket connection
  *                              for controlling the elevators via TCP socket. Both, input and
  *                              output is provided on the default port 4711 (easy to remember in English)</tr>
@@ -85,6 +91,26 @@ import java.io.*;
  * <tr><td><code>-precision value</code><td>Specifies the movement step of one elevator, i.e.
  *                              the precision of the model, in floor units per time step.
  *                              If not specified, defaults to some hard-coded value.</tr>
+ * <tr><td><code>-headless</code><td>Do not create the GUI. The elevators are
+ *                              simulated and controlled via standard input/output,
+ *                              TCP sockets or Java RMI only.</tr>
+ * <tr><td><code>-rate value</code><td>The rate of the simulation clock, i.e. the number of
+ *                              simulated milliseconds per real millisecond, e.g. 100 runs the
+ *                              simulation 100 times faster than the real time. Defaults to 1.
+ *                              The rate can also be set remotely via Java RMI.</tr>
+ * <tr><td><code>-discrete</code><td>Run the simulation in the discrete-event mode:
+ *                              jump from event to event (floor crossings, arrivals,
+ *                              doors completely open/closed) rather than take every
+ *                              time step. Positions are printed on events only.</tr>
+ * <tr><td><code>-threads n</code><td>Advance the elevators on each time step
+ *                              with <i>n</i> threads, each taking a part of the elevators.
+ *                              Useful for large fleets on multi-core machines. Defaults to 1.</tr>
+ * <tr><td><code>-accel value</code><td>The acceleration and deceleration of cabins in
+ *                              floors per (simulated) second squared. If not specified,
+ *                              cabins start and stop at once.</tr>
+ * <tr><td><code>-destination</code><td>Destination dispatch mode: every floor has
+ *                              a destination keypad instead of the arrow buttons,
+ *                              so a hall call names the floor to go to.</tr>
  * </table> </center>
  * <p>
  * To control the application via standard input and/or a TCP socket input stream
@@ -94,6 +120,11 @@ import java.io.*;
  * <tr><td><code> m <i>n c </i></code><td>Start moving the elevator number <i>n</i> upwards
  *                                      (<i>c</i> = 1) or downwards (<i>c</i> = -1).<br>
  *                                      Stop the elevator if <i>c</i> = 0</tr>
+ * <tr><td><code> g <i>n f </i></code><td>Send the elevator number <i>n</i> to the
+ *                                      floor number <i>f</i>. The elevator moves
+ *                                      there and stops exactly at the floor, and its
+ *                                      scale follows the cabin; a "m" command cancels
+ *                                      the trip</tr>
  * <tr><td><code> d <i>n c </i></code><td>Open (<i>c</i> = 1) or close (<i>c</i> = -1)
  *                                      the door of the elevator number <i>n</i></tr>
  * <tr><td><code> s <i>n f </i></code><td>Set the given floor number <i>f</i> to
@@ -130,6 +161,10 @@ import java.io.*;
  * output or a TCP socket is "b <i>n d</i>" (where "b"
  * stands for "button", <i>n</i> is the number of the floor where the button
  * is located and <i>d</i> is a direction (up or down) associated with the button.
+ * In the destination dispatch mode (the <code>-destination</code> option) the action
+ * command of a floor keypad is "t <i>f g</i>" (where "t" stands for "target"),
+ * <i>f</i> is the number of the floor where the keypad is located and <i>g</i> is
+ * the number of the floor chosen to go to.
  * <p>As default (if the "-nopos" command line option is not specified),
  * the application prints to the
  * standard output or a TCP socket the position of an elevator when it moves. The
@@ -193,13 +228,21 @@ import java.io.*;
 
 public class Elevators {
 /**
- * Maximum possible number of elevators = 5
+ * Maximum possible number of elevators displayed by the GUI = 5
  */
   public final static int MaxNumberOfElevators = 5;
   /**
-   * Maximum possible number of the top floor = 6
+   * Maximum possible number of the top floor displayed by the GUI = 6
    */
   public final static int MaxTopFloor = 6;
+  /**
+   * Maximum possible number of elevators when started with the "-headless" option = 16384
+   */
+  public final static int MaxHeadlessNumberOfElevators = 16384;
+  /**
+   * Maximum possible number of the top floor when started with the "-headless" option = 1023
+   */
+  public final static int MaxHeadlessTopFloor = 1023;
   /**
    * Default number of elevators = 1
    */
@@ -261,7 +304,22 @@ public class Elevators {
    */
   public static int numberOfFloors;
 
+  /**
+   * The state of all elevators (the Model)
+   */
+  protected Fleet fleet;
+  /**
+   * Views of elevators of the fleet
+   */
   protected Elevator[] allElevators;
+  /**
+   * The simulation engine that advances the state of all elevators (the Model).
+   */
+  public static ElevatorEngine engine;
+  /**
+   * The virtual clock of the simulation.
+   */
+  public static SimulationClock clock;
   /**
    * A boolean option that indicates whether a TCP socket(s) must be open for for input/output.
    * Defaults to false. Set by "-tcp" command line option
@@ -310,31 +368,76 @@ public class Elevators {
    * elevators to the standard output. Defaults to true (do print).
    */
   protected static boolean posOutput = true;
+  /**
+   * The boolean variable that indicates whether to run without GUI.
+   * Defaults to false (create GUI). Set by "-headless" command line option
+   */
+  protected static boolean headless = false;
+  /**
+   * The boolean variable that indicates whether the simulation engine runs in the
+   * discrete-event mode. Defaults to false (fixed time steps). Set by "-discrete"
+   * command line option
+   */
+  protected static boolean discrete = false;
+  /**
+   * The rate of the simulation clock (simulated milliseconds per real millisecond).
+   * Defaults to 1 (real time). Can be changed with "-rate value" command line option
+   */
+  protected static double rate = 1.0;
+  /**
+   * The number of threads advancing the elevators on each time step.
+   * Defaults to 1. Can be changed with "-threads n" command line option
+   */
+  protected static int threads = 1;
+  /**
+   * The acceleration (and deceleration) of cabins in floor units per simulated
+   * millisecond squared. Defaults to infinity (cabins start and stop at once).
+   * Can be changed with "-accel value" command line option (in floors per second squared)
+   */
+  protected static double acceleration = Double.POSITIVE_INFINITY;
+  /**
+   * The boolean variable that indicates whether the floors have destination
+   * keypads instead of arrow buttons, i.e. hall calls name the floor to go to.
+   * Defaults to false. Set by "-destination" command line option
+   */
+  public static boolean destinationDispatch = false;
   /**
    * A movement step of an elevator, i.e precision of the model. Defaults to 0.04
    */
   public static double step = (double)0.04;
   /**
    * Creates an instance of <code>Elevators</code>, parses the input parameters,
-   * creates the "Model" of the application (array of objects
-   * with the <code>Elevator</code> class) and the "View" of the application
-   * (an object of the <code>ElevatorGUI</code> class).
+   * creates the "Model" of the application (the <code>Fleet</code> and
+   * its views with the <code>Elevator</code> class), the simulation engine and the "View"
+   * of the application (an object of the <code>ElevatorGUI</code> class, unless
+   * started with the "-headless" option), and starts the simulation engine.
    *
    */
   public Elevators(String[] args) {
     initOptions(args);
     numberOfFloors = topFloor + 1;
-    if (numberOfFloors > MaxTopFloor + 1) {
+    if (!headless && (numberOfElevators > MaxNumberOfElevators || topFloor > MaxTopFloor)) {
       System.err.println("illegal parameters" + EOL + USAGE);
       System.exit(1);
     } else
       System.err.println("number of elevators = "+ numberOfElevators + EOL +
         "number of floors = " + numberOfFloors + EOL);
+    fleet = new Fleet(numberOfElevators, topFloor, acceleration);
     allElevators = new Elevator[numberOfElevators + 1];
     for (int i = 0; i < numberOfElevators; i++) {
-      allElevators[i] = new Elevator(i + 1);
+      allElevators[i] = new Elevator(fleet, i + 1);
+    }
+    clock = new SimulationClock(rate);
+    engine = new ElevatorEngine(this, (101 - ElevatorGUI.SLIDER_INIT) * ElevatorGUI.delayStep);
+    if (headless) {
+      ElevatorGUI.io = new ElevatorIO(this);
+      System.err.println("Starting IO (headless)");
+      ElevatorGUI.io.setPriority(ElevatorGUI.io.getPriority() + 1);
+      ElevatorGUI.io.start();
+    } else {
+      ElevatorGUI window1 =  new ElevatorGUI("Elevator", this);
     }
-    ElevatorGUI window1 =  new ElevatorGUI("Elevator", this);
+    engine.start();
   }
   /**
    * Command line options of the Elevators application
@@ -351,7 +454,13 @@ public class Elevators {
     "-rmiPort",
     "-rmi",
     "-nopos",
-    "-precision"
+    "-precision",
+    "-headless",
+    "-discrete",
+    "-rate",
+    "-threads",
+    "-accel",
+    "-destination"
   };
   /**
    * Number of accepted command line options
@@ -361,9 +470,11 @@ public class Elevators {
    * The usage message to be printed on the -help request
    */
   public static final String USAGE =
-    "USAGE: java Elevators [-number numberOfElevators] [-top topFloor] [-tcp] [-tcpin portForInput] [-tcpout portForOutput] [-rmi] [-nopos] [-precision value]" + EOL +
-    "max number of elevators is " + MaxNumberOfElevators + EOL +
-    "max number of floors (including BV) is " + (MaxTopFloor + 1);
+    "USAGE: java Elevators [-number numberOfElevators] [-top topFloor] [-tcp] [-tcpin portForInput] [-tcpout portForOutput] [-rmi] [-nopos] [-precision value] [-headless] [-discrete] [-rate value] [-threads n] [-accel value] [-destination]" + EOL +
+    "max number of elevators is " + MaxNumberOfElevators +
+    " (" + MaxHeadlessNumberOfElevators + " with -headless)" + EOL +
+    "max number of floors (including BV) is " + (MaxTopFloor + 1) +
+    " (" + (MaxHeadlessTopFloor + 1) + " with -headless)";
 
   private void initOptions(String[] args) {
     int argc = args.length;
@@ -395,7 +506,7 @@ public class Elevators {
                 System.err.println(USAGE);
                 System.exit(0);
               case 2: //-number numberOfElevators
-                if (isInteger && number > 0 && number <= MaxNumberOfElevators) {
+                if (isInteger && number > 0 && number <= MaxHeadlessNumberOfElevators) {
                   numberOfElevators = number;
                   break;
                 } else {
@@ -403,7 +514,7 @@ public class Elevators {
                   System.exit(1);
                 }
               case 3: // -top topFloor
-                if (isInteger && number <= MaxTopFloor && number >= 1) {
+                if (isInteger && number <= MaxHeadlessTopFloor && number >= 1) {
                   topFloor = number;
                   break;
                 } else {
@@ -448,6 +559,45 @@ public class Elevators {
                   System.err.println("illegal parameters" + EOL + USAGE);
                   System.exit(1);
                 }
+                break;
+              }
+              case 12: { // -headless (do not create GUI)
+                headless = true;
+                break;
+              }
+              case 13: { // -discrete (discrete-event simulation)
+                discrete = true;
+                break;
+              }
+              case 14: { // -rate value (simulated milliseconds per real millisecond)
+                if (isInteger && number > 0) rate = number;
+                else if (isdouble && fnumber > 0.0) rate = fnumber;
+                else {
+                  System.err.println("illegal parameters" + EOL + USAGE);
+                  System.exit(1);
+                }
+                break;
+              }
+              case 15: { // -threads n (threads advancing elevators)
+                if (isInteger && number > 0) threads = number;
+                else {
+                  System.err.println("illegal parameters" + EOL + USAGE);
+                  System.exit(1);
+                }
+                break;
+              }
+              case 16: { // -accel value (floors per simulated second squared)
+                if (isInteger && number > 0) acceleration = number / 1e6;
+                else if (isdouble && fnumber > 0.0) acceleration = fnumber / 1e6;
+                else {
+                  System.err.println("illegal parameters" + EOL + USAGE);
+                  System.exit(1);
+                }
+                break;
+              }
+              case 17: { // -destination (destination keypads on the floors)
+                destinationDispatch = true;
+                break;
               }
               default: ;
             }
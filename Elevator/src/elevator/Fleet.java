@@ -0,0 +1,355 @@
+package elevator;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * Holds the state of all elevators (the "Model") in primitive arrays indexed
+ * by the elevator index (0, 1, ...): positions of cabins, directions of motors,
+ * directions and states of doors and positions of scales. Keeping the state
+ * of one kind in one array rather than in one object per elevator lets the
+ * simulation engine sweep thousands of elevators in a cache-friendly loop
+ * and avoids thousands of small objects and monitors.
+ * <p>The motion of a cabin is kept in closed form (see <code>Kinematics</code>):
+ * the start time, position and velocity of the current segment (since the last
+ * command to the motor, the last change of the velocity of elevators or the last
+ * stop) and the target velocity. The position of a cabin at any time is computed
+ * in O(1) with <code>positionAt</code> and the time when a cabin gets to a floor
+ * with <code>timeToReach</code>, independently of the time step of the engine
+ * and the precision of the model. The <code>position</code> array holds the
+ * position of each cabin as of the last time step of the engine.
+ * <p>A cabin may be sent to a floor with <code>goTo</code>: the floor is kept as its
+ * destination and as the stop position of the current segment, so the cabin brakes
+ * in time and comes to rest exactly at the floor. The engine halts the cabin there
+ * when the arrival time (<code>arrivalTime</code>) has come.
+ * <p>Updates are synchronized with lock objects shared by groups ("stripes") of
+ * elevators: the motor (or the door) of the elevator with the index <i>i</i> is
+ * guarded by <code>motorLock(i)</code> (or <code>doorLock(i)</code>).
+ * <p>The <code>Elevator</code> class is a thin view of one elevator of the fleet
+ * that checks the values set and is used by the GUI, I/O and RMI parts of the
+ * application.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.Elevator
+ * @see     elevator.ElevatorEngine
+ * @see     elevator.Kinematics
+ */
+public class Fleet {
+  /**
+   * The number of lock stripes (a power of two) for motors and for doors.
+   */
+  public final static int LOCK_STRIPES = 64;
+  // the state of the fleet, indexed by the elevator index
+  final double[] position;
+  final int[] motor;
+  final int[] door;
+  final int[] doorStatus;
+  final int[] scale;
+  // the current segment of the motion of each cabin
+  final double[] startTime;
+  final double[] startPosition;
+  final double[] startVelocity;
+  final double[] targetVelocity;
+  final double[] stopAt;
+  // the floor each cabin has been sent to, -1 if none
+  final int[] destination;
+  private final double acceleration;
+  private volatile double velocity;
+  private final int size;
+  private final int topFloor;
+  private final Object[] motorLocks = new Object[LOCK_STRIPES];
+  private final Object[] doorLocks = new Object[LOCK_STRIPES];
+  /**
+   * Creates a fleet of the given number of elevators. All cabins are at the bottom floor,
+   * all motors are stopped, all doors are closed, all scales show the bottom floor.
+   * @param size the number of elevators
+   * @param topFloor the number of the top floor
+   * @param acceleration the acceleration (and deceleration) of cabins in floor units
+   *    per simulated millisecond squared, Double.POSITIVE_INFINITY to start
+   *    and to stop at once
+   */
+  public Fleet(int size, int topFloor, double acceleration) {
+    this.size = size;
+    this.topFloor = topFloor;
+    this.acceleration = acceleration;
+    startTime = new double[size];
+    startPosition = new double[size];
+    startVelocity = new double[size];
+    targetVelocity = new double[size];
+    stopAt = new double[size];
+    destination = new int[size];
+    position = new double[size];
+    motor = new int[size];
+    door = new int[size];
+    doorStatus = new int[size];
+    scale = new int[size];
+    java.util.Arrays.fill(doorStatus, DoorStatus.CLOSED);
+    java.util.Arrays.fill(stopAt, Double.NaN);
+    java.util.Arrays.fill(destination, -1);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      motorLocks[i] = new Object();
+      doorLocks[i] = new Object();
+    }
+  }
+  /**
+   * Returns the number of elevators in the fleet.
+   * @return the number of elevators
+   */
+  public int size() {
+    return size;
+  }
+  /**
+   * Returns the number of the top floor.
+   * @return the number of the top floor
+   */
+  public int getTopFloor() {
+    return topFloor;
+  }
+  /**
+   * Returns the object used to synchronize updates to the state of the motor
+   * of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the lock object
+   */
+  public Object motorLock(int index) {
+    return motorLocks[index & (LOCK_STRIPES - 1)];
+  }
+  /**
+   * Returns the object used to synchronize updates to the state of the door
+   * of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the lock object
+   */
+  public Object doorLock(int index) {
+    return doorLocks[index & (LOCK_STRIPES - 1)];
+  }
+  /**
+   * Returns the current position of the cabin of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the position of the cabin in "floor units"
+   */
+  public double getPosition(int index) {
+    return position[index];
+  }
+  /**
+   * Returns the current direction of the motor of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return 1 (upwards), -1 (downwards), 0 (stopped)
+   */
+  public int getMotor(int index) {
+    return motor[index];
+  }
+  /**
+   * Returns the current direction of movement of the door of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return 1 (opening), -1 (closing), 0 (still)
+   */
+  public int getDoor(int index) {
+    return door[index];
+  }
+  /**
+   * Returns the current state of the door of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return DoorStatus.CLOSED, DoorStatus.OPEN1, ... DoorStatus.OPEN4
+   */
+  public int getDoorStatus(int index) {
+    return doorStatus[index];
+  }
+  /**
+   * Returns the current position (level) of the scale of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the floor shown by the scale
+   */
+  public int getScale(int index) {
+    return scale[index];
+  }
+  /**
+   * Returns the floor the cabin of the given elevator has been sent to with <code>goTo</code>.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the floor number, or -1 if the cabin has not been sent to any floor
+   */
+  public int getDestination(int index) {
+    return destination[index];
+  }
+  /**
+   * Returns the position of the cabin of the given elevator at the given time,
+   * bounded by the shaft.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param time the simulated time in milliseconds (not before the last command)
+   * @return the position of the cabin in "floor units"
+   */
+  public double positionAt(int index, double time) {
+    double p = Kinematics.position(startPosition[index], startVelocity[index],
+        targetVelocity[index], acceleration, stopAt[index], time - startTime[index]);
+    return (p < 0.0) ? 0.0 : (p > topFloor) ? topFloor : p;
+  }
+  /**
+   * Returns the velocity of the cabin of the given elevator at the given time.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param time the simulated time in milliseconds (not before the last command)
+   * @return the velocity in floor units per simulated millisecond (negative downwards)
+   */
+  public double velocityAt(int index, double time) {
+    return Kinematics.velocity(startPosition[index], startVelocity[index],
+        targetVelocity[index], acceleration, stopAt[index], time - startTime[index]);
+  }
+  /**
+   * Returns the earliest time, not before the given time, at which the cabin
+   * of the given elevator is at the given position if nothing changes its motion.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param time the simulated time in milliseconds to start from
+   * @param x the position in "floor units"
+   * @return the simulated time in milliseconds, or Double.POSITIVE_INFINITY if never
+   */
+  public double timeToReach(int index, double time, double x) {
+    double t0 = startTime[index];
+    return t0 + Kinematics.timeToReach(startPosition[index], startVelocity[index],
+        targetVelocity[index], acceleration, stopAt[index], x, time - t0);
+  }
+  /**
+   * Returns the time at which the cabin of the given elevator comes to rest at
+   * the floor it has been sent to, if nothing changes its motion.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the simulated time in milliseconds, or Double.POSITIVE_INFINITY if
+   *    the cabin is not on its way to stop at a floor
+   */
+  public double arrivalTime(int index) {
+    return startTime[index] + Kinematics.arrivalTime(startPosition[index],
+        startVelocity[index], targetVelocity[index], acceleration, stopAt[index]);
+  }
+  /**
+   * Checks whether the cabin of the given elevator is moving or is to move.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return true if the motor is running or the cabin has not stopped yet
+   */
+  public boolean isMoving(int index) {
+    return motor[index] != Elevators.STOP || startVelocity[index] != 0.0;
+  }
+  /**
+   * Starts a new segment of the motion of the given cabin at the given time:
+   * the start position and velocity are set to the position and the velocity
+   * of the cabin at that time. Must be called under <code>motorLock(index)</code>.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param time the simulated time in milliseconds
+   */
+  void rebase(int index, double time) {
+    if (time < startTime[index]) time = startTime[index];
+    double p = positionAt(index, time);
+    startVelocity[index] = velocityAt(index, time);
+    startPosition[index] = p;
+    startTime[index] = time;
+  }
+  /**
+   * Sets the direction of the motor of the given elevator at the given time.
+   * The cabin starts accelerating (or decelerating) from its current velocity.
+   * Must be called under <code>motorLock(index)</code>.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param dir 1 (upwards), -1 (downwards), 0 (stop)
+   * @param time the simulated time in milliseconds
+   */
+  void setMotor(int index, int dir, double time) {
+    rebase(index, time);
+    motor[index] = dir;
+    stopAt[index] = Double.NaN;
+    destination[index] = -1;
+    retarget(index);
+  }
+  /**
+   * Sets the target velocity of the current segment of the given cabin from
+   * the direction of its motor and the cruise velocity.
+   */
+  private void retarget(int index) {
+    targetVelocity[index] = motor[index] * velocity;
+    if (Double.isInfinite(acceleration)) startVelocity[index] = targetVelocity[index];
+  }
+  /**
+   * Sends the cabin of the given elevator to the given floor at the given time.
+   * The cabin accelerates towards the floor, brakes in time and stops exactly
+   * at the floor; a cabin moving away from the floor first comes to a halt
+   * (the engine then calls this method again to turn it). A cabin already
+   * standing at the floor stays there. Must be called under <code>motorLock(index)</code>.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param floor the floor number (0 ... the top floor)
+   * @param time the simulated time in milliseconds
+   */
+  void goTo(int index, int floor, double time) {
+    rebase(index, time);
+    stopAt[index] = Double.NaN;
+    destination[index] = floor;
+    double p = startPosition[index];
+    double v = (Double.isInfinite(acceleration)) ? 0.0 : startVelocity[index];
+    int dir = (floor > p) ? Elevators.UP : (floor < p) ? Elevators.DOWN : Elevators.STOP;
+    if (dir == Elevators.STOP && v == 0) {
+      halt(index, floor, time);
+      destination[index] = -1;
+    } else if (dir * v < 0 || dir == Elevators.STOP) {
+      motor[index] = Elevators.STOP;
+      retarget(index);
+    } else {
+      motor[index] = dir;
+      stopAt[index] = floor;
+      retarget(index);
+    }
+  }
+  /**
+   * Stops the cabin of the given elevator at once at the given position, e.g. at the
+   * end of the shaft. Must be called under <code>motorLock(index)</code>.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param position the position in "floor units"
+   * @param time the simulated time in milliseconds
+   */
+  void halt(int index, double position, double time) {
+    motor[index] = Elevators.STOP;
+    startTime[index] = Math.max(time, startTime[index]);
+    startPosition[index] = position;
+    startVelocity[index] = 0.0;
+    targetVelocity[index] = 0.0;
+    stopAt[index] = Double.NaN;
+    this.position[index] = position;
+  }
+  /**
+   * Returns the cruise velocity of cabins.
+   * @return the velocity in floor units per simulated millisecond
+   */
+  public double getVelocity() {
+    return velocity;
+  }
+  /**
+   * Returns the acceleration of cabins.
+   * @return the acceleration in floor units per simulated millisecond squared
+   */
+  public double getAcceleration() {
+    return acceleration;
+  }
+  /**
+   * Sets the cruise velocity of cabins at the given time. Moving cabins start
+   * accelerating (or decelerating) towards the new velocity; cabins on their way
+   * to a floor still stop at the floor.
+   * @param velocity the velocity in floor units per simulated millisecond
+   * @param time the simulated time in milliseconds
+   */
+  public void setVelocity(double velocity, double time) {
+    this.velocity = velocity;
+    for (int i = 0; i < size; i++)
+      if (isMoving(i))
+        synchronized (motorLock(i)) {
+          rebase(i, time);
+          retarget(i);
+        }
+  }
+  /**
+   * Copies positions of cabins of all elevators into the given array.
+   * @param dest the array of at least <code>size()</code> elements, or null
+   * @return the array with positions (a new one if <code>dest</code> is null or too short)
+   */
+  public double[] getPositions(double[] dest) {
+    if (dest == null || dest.length < size) dest = new double[size];
+    System.arraycopy(position, 0, dest, 0, size);
+    return dest;
+  }
+}
@@ -0,0 +1,198 @@
+package elevator;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * An immutable copy of the motion of all cabins of the <code>Fleet</code>
+ * (the current segment of each cabin, see <code>Kinematics</code>) and of the
+ * state of their motors, doors and scales, taken by the <code>ElevatorEngine</code>
+ * at most once per step when any of them has changed. Only the cabins that have
+ * changed are copied from the fleet; the others are taken over from the previous
+ * snapshot. All values of a snapshot are as of the same step (see <code>getTick</code>).
+ * The engine publishes a new snapshot by swapping a volatile reference, so
+ * readers (e.g. RMI threads calling <code>whereIs</code> or <code>whereAre</code>)
+ * neither take locks nor delay the engine. Positions are computed in closed form
+ * for the current simulated time, all for the same time, independently of
+ * the time step of the engine.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.ElevatorEngine#getSnapshot
+ */
+public final class FleetSnapshot {
+  private final long tick;
+  private final double[] startTime;
+  private final double[] startPosition;
+  private final double[] startVelocity;
+  private final double[] targetVelocity;
+  private final double[] stopAt;
+  private final int[] motor;
+  private final int[] door;
+  private final int[] doorStatus;
+  private final int[] scale;
+  private final double acceleration;
+  private final int topFloor;
+  /**
+   * Creates a snapshot of the given fleet. The motion of each cabin is copied
+   * under its motor lock, so it is never torn.
+   * @param fleet the fleet to be copied
+   * @param tick the current step number
+   */
+  FleetSnapshot(Fleet fleet, long tick) {
+    int size = fleet.size();
+    this.tick = tick;
+    startTime = new double[size];
+    startPosition = new double[size];
+    startVelocity = new double[size];
+    targetVelocity = new double[size];
+    stopAt = new double[size];
+    motor = new int[size];
+    door = new int[size];
+    doorStatus = new int[size];
+    scale = new int[size];
+    for (int s = 0; s < Fleet.LOCK_STRIPES && s < size; s++) {
+      synchronized (fleet.motorLock(s)) {
+        for (int i = s; i < size; i += Fleet.LOCK_STRIPES) copyMotion(fleet, i);
+      }
+      synchronized (fleet.doorLock(s)) {
+        for (int i = s; i < size; i += Fleet.LOCK_STRIPES) copyDoor(fleet, i);
+      }
+    }
+    acceleration = fleet.getAcceleration();
+    topFloor = fleet.getTopFloor();
+  }
+  /**
+   * Creates a snapshot of the given fleet from the previous one: the motion of
+   * the cabins marked as stale is copied from the fleet under their motor locks,
+   * the motion of all other cabins is taken over from the previous snapshot.
+   * @param previous the previous snapshot of the same fleet
+   * @param fleet the fleet to be copied
+   * @param tick the current step number
+   * @param stale whether the motion of each cabin may have changed since
+   *    the previous snapshot
+   */
+  FleetSnapshot(FleetSnapshot previous, Fleet fleet, long tick, boolean[] stale) {
+    this.tick = tick;
+    startTime = previous.startTime.clone();
+    startPosition = previous.startPosition.clone();
+    startVelocity = previous.startVelocity.clone();
+    targetVelocity = previous.targetVelocity.clone();
+    stopAt = previous.stopAt.clone();
+    motor = previous.motor.clone();
+    door = previous.door.clone();
+    doorStatus = previous.doorStatus.clone();
+    scale = previous.scale.clone();
+    for (int i = 0; i < stale.length; i++)
+      if (stale[i]) {
+        synchronized (fleet.motorLock(i)) {
+          copyMotion(fleet, i);
+        }
+        synchronized (fleet.doorLock(i)) {
+          copyDoor(fleet, i);
+        }
+      }
+    acceleration = previous.acceleration;
+    topFloor = previous.topFloor;
+  }
+  /**
+   * Copies the motion, the motor and the scale of one cabin. Must be called
+   * under its motor lock.
+   */
+  private void copyMotion(Fleet fleet, int i) {
+    startTime[i] = fleet.startTime[i];
+    startPosition[i] = fleet.startPosition[i];
+    startVelocity[i] = fleet.startVelocity[i];
+    targetVelocity[i] = fleet.targetVelocity[i];
+    stopAt[i] = fleet.stopAt[i];
+    motor[i] = fleet.motor[i];
+    scale[i] = fleet.scale[i];
+  }
+  /**
+   * Copies the door of one cabin. Must be called under its door lock.
+   */
+  private void copyDoor(Fleet fleet, int i) {
+    door[i] = fleet.door[i];
+    doorStatus[i] = fleet.doorStatus[i];
+  }
+  /**
+   * Returns the number of the step at which the snapshot has been taken.
+   * @return the step number
+   */
+  public long getTick() {
+    return tick;
+  }
+  /**
+   * Returns the number of elevators in the snapshot.
+   * @return the number of elevators
+   */
+  public int size() {
+    return startTime.length;
+  }
+  /**
+   * Returns the position of the cabin of the given elevator at the current simulated time.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the position in "floor units"
+   */
+  public double getPosition(int index) {
+    return getPosition(index, Elevators.clock.currentTimeMillis());
+  }
+  /**
+   * Returns the position of the cabin of the given elevator at the given simulated time
+   * (not before the snapshot has been taken) if nothing changes its motion.
+   * @param index the index (0, 1, ...) of the elevator
+   * @param time the simulated time in milliseconds
+   * @return the position in "floor units"
+   */
+  public double getPosition(int index, double time) {
+    double p = Kinematics.position(startPosition[index], startVelocity[index],
+        targetVelocity[index], acceleration, stopAt[index], time - startTime[index]);
+    return (p < 0.0) ? 0.0 : (p > topFloor) ? topFloor : p;
+  }
+  /**
+   * Returns the direction of the motor of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return 1 (upwards), -1 (downwards), 0 (stopped)
+   */
+  public int getMotor(int index) {
+    return motor[index];
+  }
+  /**
+   * Returns the direction of movement of the door of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return 1 (opening), -1 (closing), 0 (still)
+   */
+  public int getDoor(int index) {
+    return door[index];
+  }
+  /**
+   * Returns the state of the door of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return DoorStatus.CLOSED, DoorStatus.OPEN1, ... DoorStatus.OPEN4
+   */
+  public int getDoorStatus(int index) {
+    return doorStatus[index];
+  }
+  /**
+   * Returns the position (level) of the scale of the given elevator.
+   * @param index the index (0, 1, ...) of the elevator
+   * @return the floor shown by the scale
+   */
+  public int getScale(int index) {
+    return scale[index];
+  }
+  /**
+   * Returns positions of cabins of all elevators, all at the current simulated time.
+   * @return a new array of positions in "floor units"
+   */
+  public double[] getPositions() {
+    double now = Elevators.clock.currentTimeMillis();
+    double[] result = new double[startTime.length];
+    for (int i = 0; i < result.length; i++) result[i] = getPosition(i, now);
+    return result;
+  }
+}
@@ -0,0 +1,190 @@
+package elevator;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * Closed-form motion of an elevator cabin. The motion since the last command
+ * (a "segment") is given by the start position <i>p0</i>, the start velocity
+ * <i>v0</i>, the target velocity <i>vt</i> (the cruise velocity in the direction
+ * of the motor, or 0 if the motor is stopped) and the acceleration <i>a</i>:
+ * the cabin accelerates (or decelerates) at <i>a</i> from <i>v0</i> until
+ * it reaches <i>vt</i> and then keeps <i>vt</i>. An infinite acceleration
+ * means that the cabin reaches <i>vt</i> at once, as a cabin of the original
+ * model does.
+ * <p>A segment may also have a stop position (e.g. a floor the cabin has been sent to
+ * with a "go to" command). Then the cabin starts braking at <i>a</i> exactly when
+ * the distance left equals its braking distance, so it comes to rest at the stop
+ * position; with an infinite acceleration it stops at once on arrival. A stop
+ * position given as <code>Double.NaN</code> means "no stop".
+ * <p>Positions are in "floor units", velocities in floor units per simulated
+ * millisecond, accelerations in floor units per simulated millisecond squared,
+ * times in simulated milliseconds since the start of the segment.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.Fleet
+ */
+public final class Kinematics {
+  /**
+   * Disallow anyone from creating one of <code>Kinematics</code>
+   */
+  private Kinematics() { }
+  /**
+   * Returns the duration of the acceleration (or deceleration) phase of a segment.
+   * @return the duration in simulated milliseconds, 0 if the acceleration is infinite
+   */
+  public static double rampTime(double v0, double vt, double a) {
+    if (v0 == vt || Double.isInfinite(a)) return 0.0;
+    return Math.abs(vt - v0) / a;
+  }
+  /**
+   * Returns the position of the cabin the given time after the start of a segment.
+   * @param p0 the start position
+   * @param v0 the start velocity
+   * @param vt the target velocity
+   * @param a the acceleration (positive, may be infinite)
+   * @param t the time since the start of the segment
+   * @return the position (not bounded by the shaft)
+   */
+  public static double position(double p0, double v0, double vt, double a, double t) {
+    if (t <= 0) return p0;
+    double ramp = rampTime(v0, vt, a);
+    if (ramp == 0.0) return p0 + vt * t;
+    double s = (vt > v0) ? a : -a;
+    if (t <= ramp) return p0 + v0 * t + 0.5 * s * t * t;
+    return p0 + v0 * ramp + 0.5 * s * ramp * ramp + vt * (t - ramp);
+  }
+  /**
+   * Returns the velocity of the cabin the given time after the start of a segment.
+   * @param v0 the start velocity
+   * @param vt the target velocity
+   * @param a the acceleration (positive, may be infinite)
+   * @param t the time since the start of the segment
+   * @return the velocity
+   */
+  public static double velocity(double v0, double vt, double a, double t) {
+    if (t <= 0) return (Double.isInfinite(a)) ? vt : v0;
+    double ramp = rampTime(v0, vt, a);
+    if (t >= ramp) return vt;
+    return v0 + ((vt > v0) ? a : -a) * t;
+  }
+  /**
+   * Returns the earliest time (since the start of a segment, not before <code>from</code>)
+   * at which the cabin is at the given position.
+   * @param p0 the start position
+   * @param v0 the start velocity
+   * @param vt the target velocity
+   * @param a the acceleration (positive, may be infinite)
+   * @param x the position to reach
+   * @param from the earliest time to consider
+   * @return the time, or Double.POSITIVE_INFINITY if the cabin never gets to <code>x</code>
+   */
+  public static double timeToReach(double p0, double v0, double vt, double a,
+                                   double x, double from) {
+    double ramp = rampTime(v0, vt, a);
+    if (ramp > 0 && from <= ramp) { // the ramp: p0 + v0 t + s t^2 / 2 = x
+      double s = (vt > v0) ? a : -a;
+      double h = 0.5 * s, c = p0 - x;
+      double d = v0 * v0 - 4 * h * c;
+      if (d >= 0) {
+        double q = Math.sqrt(d);
+        double t1 = (-v0 - q) / (2 * h), t2 = (-v0 + q) / (2 * h);
+        double lo = Math.min(t1, t2), hi = Math.max(t1, t2);
+        if (lo >= from && lo <= ramp) return lo;
+        if (hi >= from && hi <= ramp) return hi;
+      }
+    }
+    if (vt == 0) return Double.POSITIVE_INFINITY;
+    // the cruise
+    double p = position(p0, v0, vt, a, ramp);
+    double t = ramp + (x - p) / vt;
+    if (t < Math.max(ramp, from)) return Double.POSITIVE_INFINITY;
+    return t;
+  }
+  /**
+   * Returns the time (since the start of a segment) at which the cabin starts braking
+   * to stop at the given stop position.
+   * @param p0 the start position
+   * @param v0 the start velocity
+   * @param vt the target velocity (towards the stop position)
+   * @param a the acceleration (positive, may be infinite)
+   * @param stop the stop position, or Double.NaN
+   * @return the time, 0 if the cabin must brake at once, Double.POSITIVE_INFINITY
+   *    if there is no stop position or the cabin is not moving towards it
+   */
+  public static double brakeTime(double p0, double v0, double vt, double a, double stop) {
+    if (Double.isNaN(stop) || vt == 0) return Double.POSITIVE_INFINITY;
+    double d = (vt > 0) ? 1 : -1;
+    double r0 = d * (stop - p0); // the distance left
+    double speed = Math.abs(vt);
+    if (Double.isInfinite(a)) return (r0 <= 0) ? 0.0 : r0 / speed;
+    double u0 = d * v0;          // the velocity towards the stop position
+    if (u0 * Math.abs(u0) >= 2 * a * r0) return 0.0;
+    double ramp = rampTime(v0, vt, a);
+    double r1; // the distance left after the ramp
+    if (u0 < speed) {
+      // while accelerating: r0 - u0 t - a t^2 / 2 = (u0 + a t)^2 / (2 a)
+      double t = (-u0 + Math.sqrt((u0 * u0 + 2 * a * r0) / 2)) / a;
+      if (t <= ramp) return Math.max(0.0, t);
+      r1 = r0 - (u0 * ramp + 0.5 * a * ramp * ramp);
+    } else r1 = r0 - (u0 * ramp - 0.5 * a * ramp * ramp);
+    // while cruising: r1 - speed (t - ramp) = speed^2 / (2 a)
+    return ramp + Math.max(0.0, (r1 - speed * speed / (2 * a)) / speed);
+  }
+  /**
+   * Returns the time (since the start of a segment) at which the cabin comes to rest
+   * at the stop position.
+   * @return the time, or Double.POSITIVE_INFINITY if there is no stop position
+   * @see #brakeTime(double, double, double, double, double)
+   */
+  public static double arrivalTime(double p0, double v0, double vt, double a, double stop) {
+    double tb = brakeTime(p0, v0, vt, a, stop);
+    if (Double.isInfinite(tb) || Double.isInfinite(a)) return tb;
+    return tb + rampTime(velocity(v0, vt, a, tb), 0.0, a);
+  }
+  /**
+   * Returns the position of the cabin the given time after the start of a segment
+   * with a stop position.
+   * @see #position(double, double, double, double, double)
+   * @see #brakeTime(double, double, double, double, double)
+   */
+  public static double position(double p0, double v0, double vt, double a,
+                                double stop, double t) {
+    double tb = brakeTime(p0, v0, vt, a, stop);
+    if (t <= tb) return position(p0, v0, vt, a, t);
+    if (Double.isInfinite(a)) return stop;
+    return position(position(p0, v0, vt, a, tb), velocity(v0, vt, a, tb), 0.0, a, t - tb);
+  }
+  /**
+   * Returns the velocity of the cabin the given time after the start of a segment
+   * with a stop position.
+   * @see #velocity(double, double, double, double)
+   * @see #brakeTime(double, double, double, double, double)
+   */
+  public static double velocity(double p0, double v0, double vt, double a,
+                                double stop, double t) {
+    double tb = brakeTime(p0, v0, vt, a, stop);
+    if (t <= tb) return velocity(v0, vt, a, t);
+    return velocity(velocity(v0, vt, a, tb), 0.0, a, t - tb);
+  }
+  /**
+   * Returns the earliest time (since the start of a segment with a stop position,
+   * not before <code>from</code>) at which the cabin is at the given position.
+   * @see #timeToReach(double, double, double, double, double, double)
+   * @see #brakeTime(double, double, double, double, double)
+   */
+  public static double timeToReach(double p0, double v0, double vt, double a,
+                                   double stop, double x, double from) {
+    double tb = brakeTime(p0, v0, vt, a, stop);
+    double t = timeToReach(p0, v0, vt, a, x, from);
+    if (t <= tb) return t;
+    if (Double.isInfinite(a)) return Double.POSITIVE_INFINITY;
+    return tb + timeToReach(position(p0, v0, vt, a, tb), velocity(v0, vt, a, tb),
+                            0.0, a, x, Math.max(0.0, from - tb));
+  }
+}
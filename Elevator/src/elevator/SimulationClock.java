@@ -0,0 +1,128 @@
+package elevator;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Vector;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * The virtual clock of the Elevators application. Simulated time is measured in
+ * milliseconds since the application has started and runs at a given rate relative
+ * to the wall-clock time, e.g. the rate 100 means that 100 simulated milliseconds
+ * pass per one real millisecond. The rate is not capped.
+ * <p>All timing of the simulation (the length of a time step of the
+ * <code>ElevatorEngine</code>, i.e. the velocity of elevators) is expressed
+ * in simulated milliseconds, so the simulation behaves identically at any rate.
+ * The clock is exposed to controllers via Java RMI (see <code>elevator.rmi.GetAll</code>
+ * and <code>elevator.rmi.Clock</code>) so that controllers can sleep against
+ * the same clock.
+ * <p>The rate is set with the "-rate value" command line option or remotely.
+ * @see elevator.ElevatorEngine
+ * @see elevator.rmi.Clock
+ */
+public class SimulationClock {
+  private long baseTime = 0;          // simulated time at the base
+  private long baseNanos = System.nanoTime(); // wall-clock time at the base
+  private double rate;
+  private Vector<ActionListener> listenerList = new Vector<ActionListener>();
+  /**
+   * Creates a clock which starts at the simulated time 0 and runs at the given rate.
+   * @param rate the number of simulated milliseconds per real millisecond (positive)
+   */
+  public SimulationClock(double rate) {
+    this.rate = (rate > 0) ? rate : 1.0;
+  }
+  /**
+   * Returns the current simulated time.
+   * @return the simulated time in milliseconds
+   */
+  public synchronized long currentTimeMillis() {
+    return baseTime + (long)((System.nanoTime() - baseNanos) * rate / 1000000.0);
+  }
+  /**
+   * Returns the current rate of the clock.
+   * @return the number of simulated milliseconds per real millisecond
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+  /**
+   * Sets a new rate of the clock. The simulated time continues from its current value.
+   * Sleeping threads are woken up to recompute their wake-up times and registered
+   * listeners are notified with the action command "r <i>rate</i>".
+   * @param rate the number of simulated milliseconds per real millisecond (positive)
+   * @return false if the rate is not positive and has not been set
+   */
+  public boolean setRate(double rate) {
+    if (!(rate > 0)) return false;
+    synchronized (this) {
+      baseTime = currentTimeMillis();
+      baseNanos = System.nanoTime();
+      this.rate = rate;
+      notifyAll();
+    }
+    ActionEvent e = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "r " + rate);
+    Object[] list = listenerList.toArray();
+    for (int i = 0; i < list.length; i++)
+      ((ActionListener)list[i]).actionPerformed(e);
+    return true;
+  }
+  /**
+   * Converts a simulated duration into real (wall-clock) nanoseconds at the current rate.
+   * @param millis the simulated duration in milliseconds
+   * @return the real duration in nanoseconds
+   */
+  public synchronized long toWallNanos(long millis) {
+    return (long)(millis * 1000000.0 / rate);
+  }
+  /**
+   * Sleeps the given simulated time.
+   * @param millis the simulated time to sleep in milliseconds
+   * @throws InterruptedException if the sleeping thread is interrupted
+   */
+  public void sleep(long millis) throws InterruptedException {
+    sleepUntil(currentTimeMillis() + millis);
+  }
+  /**
+   * Sleeps until the given simulated time. Waits shorter than a real millisecond
+   * (at high rates) are done by yielding rather than by waiting.
+   * @param time the simulated time to sleep until in milliseconds
+   * @throws InterruptedException if the sleeping thread is interrupted
+   */
+  public void sleepUntil(long time) throws InterruptedException {
+    while (true) {
+      synchronized (this) {
+        long remaining = time - currentTimeMillis();
+        if (remaining <= 0) return;
+        long nanos = toWallNanos(remaining);
+        if (nanos >= 1000000) {
+          wait(nanos / 1000000);
+          continue;
+        }
+      }
+      Thread.yield();
+      if (Thread.interrupted()) throw new InterruptedException();
+    }
+  }
+  /**
+   * Adds a listener which is notified when the rate has changed.
+   * @param listener the <code>ActionListener</code> to be added
+   */
+  public void addActionListener(ActionListener listener) {
+    listenerList.addElement(listener);
+  }
+  /**
+   * Removes a listener.
+   * @param listener the <code>ActionListener</code> to be removed
+   */
+  public void removeActionListener(ActionListener listener) {
+    listenerList.removeElement(listener);
+  }
+}
@@ -0,0 +1,384 @@
+package elevator.rmi;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * A local view of all elevators with the <code>Elevators</code> interface
+ * that keeps the positions of the cabins on the client side. The view is
+ * subscribed as a position listener for all elevators (see
+ * <code>MakeAll.addPositionListener</code>), so the Elevators application pushes
+ * the position of a cabin every time step while it moves, and
+ * <code>whereIs</code> and <code>whereAre</code> return the cached positions
+ * without calling the application. A cabin that stands still sends no events,
+ * and a cabin that starts moving sends one at its first step, so the position
+ * last pushed (or fetched) for a cabin at rest stays right for as long as no
+ * new one comes, however old it is. A cabin is taken to be at rest once its
+ * last pushed position is on a floor (it has arrived) or has not changed.
+ * Only a cabin that is moving, or has been given a motor or "goto" command
+ * through the view, has a position that may go stale: if it is older than the
+ * staleness bound (<code>MAX_AGE</code> by default), in simulated time, it is
+ * fetched again, for all cabins in one <code>whereAre</code> call. All other
+ * methods (motors, doors, scales, <code>goTo</code>) are forwarded to the
+ * remote <code>Elevators</code>.
+ * <p>Readers take no locks: the position of each cabin is an immutable reading
+ * swapped atomically, and a fetched reading never replaces one pushed after
+ * the fetch has started.
+ * <p>A view is obtained with <code>MakeAll.getCachedElevators()</code>, a view of
+ * one elevator with <code>MakeAll.getCachedElevator(int)</code>.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.rmi.MakeAll#getCachedElevators()
+ * @see     elevator.rmi.Elevators
+ */
+public final class CachedElevators implements Elevators, ActionListener {
+  /**
+   * The default staleness bound of the position of a moving cabin in
+   * milliseconds (simulated time)
+   */
+  public static final long MAX_AGE = 1000;
+  private final Elevators remote;
+  private final Clock clock;
+  private final AtomicReferenceArray<Reading> reading;
+  private final Elevator[] elevator;
+  private volatile long maxAge = MAX_AGE;
+  /**
+   * A position of a cabin, the real and the simulated time it has been
+   * received and whether the cabin may be moving. The real time orders
+   * fetched readings after pushed ones, the simulated time gives the age.
+   */
+  private static final class Reading {
+    final double position;
+    final long received, time;
+    final boolean moving;
+    Reading(double position, long received, long time, boolean moving) {
+      this.position = position;
+      this.received = received;
+      this.time = time;
+      this.moving = moving;
+    }
+    /**
+     * Returns the reading of a new position received at the given times; the
+     * cabin may be moving unless the position is on a floor or unchanged.
+     */
+    Reading next(double position, long received, long time) {
+      boolean moving = position != this.position
+          && position != Math.rint(position);
+      return new Reading(position, received, time, moving);
+    }
+  }
+  /**
+   * Creates a view of the given elevators and fetches their positions. The
+   * view must be added as a position listener for all elevators to receive
+   * the positions pushed by the application.
+   * @param remote the remote <code>Elevators</code>
+   * @param numberOfElevators the number of elevators
+   * @param clock the mirror of the simulation clock
+   * @throws RemoteException if failed to fetch the positions
+   */
+  CachedElevators(Elevators remote, int numberOfElevators, Clock clock)
+      throws RemoteException {
+    this.remote = remote;
+    this.clock = clock;
+    reading = new AtomicReferenceArray<Reading>(numberOfElevators);
+    elevator = new Elevator[numberOfElevators];
+    for (int i = 0; i < numberOfElevators; i++) {
+      reading.set(i, new Reading(0, Long.MIN_VALUE, Long.MIN_VALUE, true));
+      elevator[i] = new CachedElevator(i + 1);
+    }
+    fetch();
+  }
+  /**
+   * Sets the staleness bound.
+   * @param maxAge the age in simulated milliseconds after which a position
+   *    of a moving cabin is fetched again, 0 to fetch on every read while
+   *    the cabin moves
+   */
+  public void setMaxAge(long maxAge) {
+    this.maxAge = maxAge;
+  }
+  /**
+   * Returns the staleness bound.
+   * @return the age in simulated milliseconds after which a position of a
+   *    moving cabin is fetched again
+   */
+  public long getMaxAge() {
+    return maxAge;
+  }
+  /**
+   * Returns a view of one elevator with the <code>Elevator</code> interface,
+   * whose <code>whereIs</code> reads the cached position.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return the view of the elevator
+   * @throws IllegalParamException if <code>number</code> is not a legal
+   *    elevator number
+   */
+  public Elevator getElevator(int number) throws IllegalParamException {
+    check(number);
+    return elevator[number - 1];
+  }
+  /**
+   * Receives the positions pushed by the application: one or more lines
+   * "f <i>n p</i>" (see <code>MakeAll.addPositionListener</code>).
+   * @param e the action event with the positions
+   */
+  public void actionPerformed(ActionEvent e) {
+    long received = System.currentTimeMillis();
+    long now = clock.currentTimeMillis();
+    String[] token = e.getActionCommand().trim().split("\\s+");
+    for (int k = 0; k + 2 < token.length; k += 3) {
+      if (!token[k].equals("f")) continue;
+      try {
+        int i = Integer.parseInt(token[k + 1]) - 1;
+        double position = Double.parseDouble(token[k + 2]);
+        if (i >= 0 && i < reading.length())
+          reading.set(i, reading.get(i).next(position, received, now));
+      } catch (NumberFormatException ex) {;} // not a position
+    }
+  }
+  /**
+   * Fetches the positions of all cabins from the application. A position
+   * pushed after the fetch has started is kept.
+   */
+  private void fetch() throws RemoteException {
+    long start = System.currentTimeMillis();
+    double[] position = remote.whereAre();
+    long received = System.currentTimeMillis();
+    long now = clock.currentTimeMillis();
+    for (int i = 0; i < position.length && i < reading.length(); i++) {
+      Reading old = reading.get(i);
+      if (old.received < start)
+        reading.compareAndSet(i, old, old.next(position[i], received, now));
+    }
+  }
+  /**
+   * Returns the cached reading of a cabin, fetched again if the cabin may be
+   * moving and the reading is stale.
+   */
+  private Reading read(int index) throws RemoteException {
+    Reading r = reading.get(index);
+    if (r.moving && clock.currentTimeMillis() - r.time > maxAge) {
+      fetch();
+      r = reading.get(index);
+    }
+    return r;
+  }
+  /**
+   * Marks a cabin as possibly moving after a motor or "goto" command, so its
+   * position is fetched again if no new one is pushed within the staleness
+   * bound.
+   * @param number the number of the elevator, 0 for all
+   */
+  private void moved(int number) {
+    int from = (number == 0) ? 0 : number - 1;
+    int to = (number == 0) ? reading.length() : Math.min(number, reading.length());
+    long now = clock.currentTimeMillis();
+    for (int i = Math.max(from, 0); i < to; i++) {
+      Reading r = reading.get(i);
+      reading.compareAndSet(i, r, new Reading(r.position, r.received, now, true));
+    }
+  }
+  private void moved(int[] number) {
+    for (int i = 0; i < number.length; i++) moved(number[i]);
+  }
+  private void check(int number) throws IllegalParamException {
+    if (number < 1 || number > elevator.length) throw new IllegalParamException();
+  }
+  // Motors
+  public void down() throws RemoteException {
+    remote.down();
+    moved(0);
+  }
+  public void down(int number) throws RemoteException, IllegalParamException {
+    remote.down(number);
+    moved(number);
+  }
+  public void down(int[] number) throws RemoteException, IllegalParamException {
+    remote.down(number);
+    moved(number);
+  }
+  public void move(int[] command) throws RemoteException, IllegalParamException {
+    remote.move(command);
+    moved(0);
+  }
+  public void move(int number[], int[] command) throws RemoteException, IllegalParamException {
+    remote.move(number, command);
+    moved(number);
+  }
+  public void stop() throws RemoteException {
+    remote.stop();
+    moved(0);
+  }
+  public void stop(int number) throws RemoteException, IllegalParamException {
+    remote.stop(number);
+    moved(number);
+  }
+  public void stop(int[] number) throws RemoteException, IllegalParamException {
+    remote.stop(number);
+    moved(number);
+  }
+  public void up() throws RemoteException {
+    remote.up();
+    moved(0);
+  }
+  public void up(int number) throws RemoteException, IllegalParamException {
+    remote.up(number);
+    moved(number);
+  }
+  public void up(int[] number) throws RemoteException, IllegalParamException {
+    remote.up(number);
+    moved(number);
+  }
+  /**
+   * Returns the cached positions of all elevators.
+   * @return an array of positions in "floor units", indexed from 0
+   * @throws RemoteException if failed to fetch stale positions
+   */
+  public double[] whereAre() throws RemoteException {
+    double[] position = new double[elevator.length];
+    for (int i = 0; i < position.length; i++) position[i] = read(i).position;
+    return position;
+  }
+  /**
+   * Returns the cached positions of a group of elevators.
+   * @param number an array of integer numbers (1, 2, ...) of elevators
+   * @return an array of positions in "floor units"
+   * @throws RemoteException if failed to fetch stale positions
+   * @throws IllegalParamException if any of <code>number</code> is not a
+   *    legal elevator number
+   */
+  public double[] whereAre(int[] number) throws RemoteException {
+    double[] position = new double[number.length];
+    for (int i = 0; i < number.length; i++) position[i] = whereIs(number[i]);
+    return position;
+  }
+  /**
+   * Returns the cached position of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return the position in "floor units"
+   * @throws RemoteException if failed to fetch a stale position
+   * @throws IllegalParamException if <code>number</code> is not a legal
+   *    elevator number
+   */
+  public double whereIs(int number) throws RemoteException, IllegalParamException {
+    check(number);
+    return read(number - 1).position;
+  }
+  // Doors
+  public void close() throws RemoteException {
+    remote.close();
+  }
+  public void close(int number) throws RemoteException, IllegalParamException {
+    remote.close(number);
+  }
+  public void close(int[] number) throws RemoteException, IllegalParamException {
+    remote.close(number);
+  }
+  public void open() throws RemoteException {
+    remote.open();
+  }
+  public void open(int number) throws RemoteException, IllegalParamException {
+    remote.open(number);
+  }
+  public void open(int[] number) throws RemoteException, IllegalParamException {
+    remote.open(number);
+  }
+  public void operate(int[] command) throws RemoteException, IllegalParamException {
+    remote.operate(command);
+  }
+  public void operate(int[] number, int[] command) throws RemoteException, IllegalParamException {
+    remote.operate(number, command);
+  }
+  // Scales
+  public int[] getScalePosition() throws RemoteException {
+    return remote.getScalePosition();
+  }
+  public int getScalePosition(int number) throws RemoteException, IllegalParamException {
+    return remote.getScalePosition(number);
+  }
+  public int[] getScalePosition(int[] number) throws RemoteException, IllegalParamException {
+    return remote.getScalePosition(number);
+  }
+  public void setScalePosition(int level) throws RemoteException, IllegalParamException {
+    remote.setScalePosition(level);
+  }
+  public void setScalePosition(int[] level) throws RemoteException, IllegalParamException {
+    remote.setScalePosition(level);
+  }
+  public void setScalePosition(int[] number, int level) throws RemoteException, IllegalParamException {
+    remote.setScalePosition(number, level);
+  }
+  public void setScalePosition(int[] number, int[] level) throws RemoteException, IllegalParamException {
+    remote.setScalePosition(number, level);
+  }
+  public void setScalePosition(int number, int level) throws RemoteException, IllegalParamException {
+    remote.setScalePosition(number, level);
+  }
+  // Elevators
+  public void goTo(int number, int floor) throws RemoteException, IllegalParamException {
+    remote.goTo(number, floor);
+    moved(number);
+  }
+  public FleetState getFleetState() throws RemoteException {
+    return remote.getFleetState();
+  }
+  public long submit(CommandBatch batch) throws RemoteException, IllegalParamException {
+    long step = remote.submit(batch);
+    for (int i = 0; i < batch.size(); i++)
+      if (batch.getKind(i) == CommandBatch.MOTOR || batch.getKind(i) == CommandBatch.GOTO)
+        moved(batch.getNumber(i));
+    return step;
+  }
+  /**
+   * The view of one elevator: commands are forwarded to the remote
+   * <code>Elevators</code> with the number of the elevator, the position is
+   * read from the cache.
+   */
+  private final class CachedElevator implements Elevator {
+    private final int number;
+    CachedElevator(int number) {
+      this.number = number;
+    }
+    public void down() throws RemoteException {
+      remote.down(number);
+      moved(number);
+    }
+    public void stop() throws RemoteException {
+      remote.stop(number);
+      moved(number);
+    }
+    public void up() throws RemoteException {
+      remote.up(number);
+      moved(number);
+    }
+    public double whereIs() throws RemoteException {
+      return read(number - 1).position;
+    }
+    public void close() throws RemoteException {
+      remote.close(number);
+    }
+    public void open() throws RemoteException {
+      remote.open(number);
+    }
+    public int getScalePosition() throws RemoteException {
+      return remote.getScalePosition(number);
+    }
+    public void setScalePosition(int level) throws RemoteException, IllegalParamException {
+      remote.setScalePosition(number, level);
+    }
+    public void goTo(int floor) throws RemoteException, IllegalParamException {
+      remote.goTo(number, floor);
+      moved(number);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package elevator.rmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * The class <code>Clock</code> provides a local mirror of the simulation clock
+ * of the Elevators application for controllers. The simulation clock measures
+ * simulated time in milliseconds and runs at a given rate relative to the real time
+ * (e.g. the rate 100 means that 100 simulated milliseconds pass per one real millisecond).
+ * A controller should sleep against this clock rather than with
+ * <code>Thread.sleep</code>, so that it behaves identically at any rate.
+ * <p>The <code>Clock</code> reads the simulated time and the rate from the Elevators
+ * via RMI when created and re-reads them at most once a real second, and estimates the
+ * simulated time locally in between. The <code>getClock()</code> static method
+ * of the <code>elevator.rmi.MakeAll</code> class is invoked to get the
+ * <code>Clock</code>.
+ * For example:
+ * <p><blockquote><pre>
+ *    Clock clock = MakeAll.getClock();
+ *    e3.open();
+ *    clock.sleep(3000); // 3 simulated seconds
+ *    e3.close();
+ * </pre></blockquote>
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.rmi.MakeAll
+ * @see     elevator.rmi.GetAll
+ */
+public class Clock {
+  /**
+   * The period (in real milliseconds) of re-reading the simulation clock
+   * from the Elevators.
+   */
+  public static final long RESYNC_PERIOD = 1000;
+  private GetAll getAll;
+  private long baseTime;  // simulated time at the base
+  private long baseNanos; // local real time at the base
+  private double rate;
+    /**
+     * Creates a mirror of the simulation clock of the Elevators referred by
+     * the given <code>GetAll</code>.
+     * @param getAll the remote reference to the Elevators
+     * @throws RemoteException if failed to read the simulation clock
+     */
+  Clock(GetAll getAll) throws RemoteException {
+    this.getAll = getAll;
+    sync();
+  }
+  /**
+   * Re-reads the simulated time and the rate from the Elevators.
+   * @throws RemoteException if failed to read the simulation clock
+   */
+  public void sync() throws RemoteException {
+    double rate = getAll.getRate();
+    long time = getAll.getTime();
+    synchronized (this) {
+      this.rate = rate;
+      baseTime = time;
+      baseNanos = System.nanoTime();
+    }
+  }
+  /**
+   * Re-reads the simulation clock if it has not been read for the
+   * <code>RESYNC_PERIOD</code>.
+   */
+  private void syncIfStale() throws RemoteException {
+    long age;
+    synchronized (this) {
+      age = System.nanoTime() - baseNanos;
+    }
+    if (age > RESYNC_PERIOD * 1000000) sync();
+  }
+  /**
+   * Returns the (estimated) current simulated time.
+   * @return the simulated time in milliseconds since the Elevators has started
+   */
+  public synchronized long currentTimeMillis() {
+    return baseTime + (long)((System.nanoTime() - baseNanos) * rate / 1000000.0);
+  }
+  /**
+   * Returns the rate of the simulation clock as last read from the Elevators.
+   * @return the number of simulated milliseconds per real millisecond
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+  /**
+   * Sets the rate of the simulation clock of the Elevators.
+   * @param rate the number of simulated milliseconds per real millisecond
+   * @throws IllegalParamException if <code>rate</code> is not positive
+   * @throws RemoteException if failed to execute
+   */
+  public void setRate(double rate) throws RemoteException, IllegalParamException {
+    getAll.setRate(rate);
+    sync();
+  }
+  /**
+   * Returns the real time left until the given simulated time, e.g. to wait
+   * for an event with a timeout in simulated time. The result is at most
+   * <code>RESYNC_PERIOD</code>, so a caller waiting longer should call again.
+   * @param time the simulated time in milliseconds
+   * @return the real time in milliseconds, 0 if the time has come
+   * @throws RemoteException if failed to read the simulation clock
+   */
+  public long realMillisUntil(long time) throws RemoteException {
+    syncIfStale();
+    long remaining = time - currentTimeMillis();
+    if (remaining <= 0) return 0;
+    return Math.min((long)Math.ceil(remaining / getRate()), RESYNC_PERIOD);
+  }
+  /**
+   * Sleeps the given simulated time.
+   * @param millis the simulated time to sleep in milliseconds
+   * @throws InterruptedException if the sleeping thread is interrupted
+   * @throws RemoteException if failed to read the simulation clock
+   */
+  public void sleep(long millis) throws InterruptedException, RemoteException {
+    sleepUntil(currentTimeMillis() + millis);
+  }
+  /**
+   * Sleeps until the given simulated time. The clock is re-read while sleeping,
+   * so a change of the rate is taken into account within a real second. Waits shorter
+   * than a real millisecond (at high rates) are done by yielding.
+   * @param time the simulated time to sleep until in milliseconds
+   * @throws InterruptedException if the sleeping thread is interrupted
+   * @throws RemoteException if failed to read the simulation clock
+   */
+  public void sleepUntil(long time) throws InterruptedException, RemoteException {
+    while (true) {
+      syncIfStale();
+      long remaining = time - currentTimeMillis();
+      if (remaining <= 0) return;
+      double millis = remaining / getRate();
+      if (millis >= 1) Thread.sleep(Math.min((long)millis, RESYNC_PERIOD));
+      else {
+        Thread.yield();
+        if (Thread.interrupted()) throw new InterruptedException();
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package elevator.rmi;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * A batch of commands to motors, doors and scales of any elevators, sent to
+ * the Elevators application in one remote call with
+ * <code>Elevators.submit</code>. The application checks all commands first and
+ * rejects the whole batch if any of them is illegal; otherwise it applies all
+ * of them at the next step boundary of the simulation engine, in the order
+ * they have been added, so they take effect in the same step.
+ * <p>Commands are added with <code>motor</code>, <code>door</code>,
+ * <code>scale</code> and <code>goTo</code>, which return the batch, e.g.
+ * <blockquote><pre>
+ *    long tick = elevators.submit(new CommandBatch()
+ *        .motor(2, 1).door(3, 1).scale(1, 4));
+ * </pre></blockquote>
+ * As in the other remote interfaces, elevators are numbered 1, 2, ..., and the
+ * number 0 means all elevators. A batch holds at most <code>MAX_SIZE</code>
+ * commands and may be cleared and reused.
+ * The commands are kept in primitive arrays and written by
+ * <code>writeExternal</code> as a few bytes per command.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.rmi.Elevators#submit(CommandBatch)
+ */
+public final class CommandBatch implements Externalizable {
+  private static final long serialVersionUID = 1L;
+  /**
+   * Kinds of commands: start (1 upwards, -1 downwards) or stop (0) a motor,
+   * open (1), close (-1) or stop (0) a door, set a scale, send a cabin to a floor
+   */
+  public static final int MOTOR = 0, DOOR = 1, SCALE = 2, GOTO = 3;
+  /**
+   * The largest number of commands in a batch
+   */
+  public static final int MAX_SIZE = 65536;
+  private int size = 0;
+  private byte[] kind = new byte[8];
+  private int[] number = new int[8];
+  private int[] value = new int[8];
+  /**
+   * Creates an empty batch.
+   */
+  public CommandBatch() {
+  }
+  /**
+   * Adds a motor command.
+   * @param number the integer number (1, 2, ...) of the elevator, 0 for all
+   * @param direction 1 - start moving upwards, 0 - stop, -1 - start moving downwards
+   * @return this batch
+   */
+  public CommandBatch motor(int number, int direction) {
+    return add(MOTOR, number, direction);
+  }
+  /**
+   * Adds a door command.
+   * @param number the integer number (1, 2, ...) of the elevator, 0 for all
+   * @param direction 1 - open, 0 - stop, -1 - close
+   * @return this batch
+   */
+  public CommandBatch door(int number, int direction) {
+    return add(DOOR, number, direction);
+  }
+  /**
+   * Adds a scale command.
+   * @param number the integer number (1, 2, ...) of the elevator, 0 for all
+   * @param level the level to be shown by the scale
+   * @return this batch
+   */
+  public CommandBatch scale(int number, int level) {
+    return add(SCALE, number, level);
+  }
+  /**
+   * Adds a command sending a cabin to a floor (see <code>Elevators.goTo</code>).
+   * @param number the integer number (1, 2, ...) of the elevator, 0 for all
+   * @param floor the floor to go to
+   * @return this batch
+   */
+  public CommandBatch goTo(int number, int floor) {
+    return add(GOTO, number, floor);
+  }
+  private CommandBatch add(int kind, int number, int value) {
+    if (size == MAX_SIZE) throw new IllegalStateException("More than " + MAX_SIZE + " commands");
+    if (size == this.kind.length) {
+      this.kind = java.util.Arrays.copyOf(this.kind, 2 * size);
+      this.number = java.util.Arrays.copyOf(this.number, 2 * size);
+      this.value = java.util.Arrays.copyOf(this.value, 2 * size);
+    }
+    this.kind[size] = (byte)kind;
+    this.number[size] = number;
+    this.value[size] = value;
+    size++;
+    return this;
+  }
+  /**
+   * Removes all commands.
+   */
+  public void clear() {
+    size = 0;
+  }
+  /**
+   * Returns the number of commands.
+   * @return the number of commands
+   */
+  public int size() {
+    return size;
+  }
+  /**
+   * Returns the kind of a command.
+   * @param i the index (0, 1, ...) of the command
+   * @return <code>MOTOR</code>, <code>DOOR</code>, <code>SCALE</code> or <code>GOTO</code>
+   */
+  public int getKind(int i) {
+    return kind[check(i)];
+  }
+  /**
+   * Returns the number of the elevator of a command.
+   * @param i the index (0, 1, ...) of the command
+   * @return the integer number (1, 2, ...) of the elevator, 0 for all
+   */
+  public int getNumber(int i) {
+    return number[check(i)];
+  }
+  /**
+   * Returns the value of a command: the direction of a motor or a door, the
+   * level of a scale or the floor to go to.
+   * @param i the index (0, 1, ...) of the command
+   * @return the value
+   */
+  public int getValue(int i) {
+    return value[check(i)];
+  }
+  private int check(int i) {
+    if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Command " + i);
+    return i;
+  }
+  /**
+   * Writes the number of commands and, for each command, its kind, the
+   * number of the elevator and the value.
+   * @param out the stream to write to
+   * @throws IOException if failed to write
+   */
+  public void writeExternal(ObjectOutput out) throws IOException {
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeByte(kind[i]);
+      out.writeInt(number[i]);
+      out.writeInt(value[i]);
+    }
+  }
+  /**
+   * Reads a batch written by <code>writeExternal</code>.
+   * @param in the stream to read from
+   * @throws IOException if failed to read
+   * @throws InvalidObjectException if the number of commands is negative or
+   *    larger than <code>MAX_SIZE</code>
+   */
+  public void readExternal(ObjectInput in) throws IOException {
+    int n = in.readInt();
+    if (n < 0 || n > MAX_SIZE) throw new InvalidObjectException("Batch of " + n + " commands");
+    size = 0;
+    for (int i = 0; i < n; i++) add(in.readByte(), in.readInt(), in.readInt());
+  }
+}
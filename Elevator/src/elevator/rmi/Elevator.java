@@ -1,5 +1,7 @@
 package elevator.rmi;
 
+import java.rmi.RemoteException;
+
 /**
  * Title:        Green Elevator
  * Description:  Green Elevator, 2G1915
@@ -16,7 +18,9 @@ package elevator.rmi;
  * <p>The <code>Elevator</code> remote interface can be used to start moving the
  * elevator up or down, to stop the elevator, to close/open the elevator's door,
  * to get a current position of the elevator, and to set/get a value of the scale of
- * the elevator.
+ * the elevator. The <code>goTo</code> method sends the elevator to a floor:
+ * the simulator moves the cabin there, stops it exactly at the floor and
+ * keeps the scale in step with the cabin, so one remote call per trip is enough.
  * The <code>getElevator()</code> static method
  * of the <code>elevator.rmi.MakeAll</code> class is invoked to get a remote
  * reference to the <code>Elevator</code> object.
@@ -26,14 +30,14 @@ package elevator.rmi;
  *     ...
  *    // move the 3rd elevator up to the 5th floor
  *    Elevator e3 = MakeAll.getElevator(3);
- *    double where = e3.getScalePosition();
- *    e3.up();
- *    do {
- *      e3.setScalePosition((int)where);
- *      sleep(10);
- *    } while ((where = e3.whereIs()) < 4.888);
- *    e3.stop();
- *    e3.setScalePosition(5);
+ *    final Semaphore arrived = new Semaphore(0);
+ *    MakeAll.addArrivalListener(3, new ActionListener() {
+ *      public void actionPerformed(ActionEvent e) {
+ *        if (e.getActionCommand().equals("a 3 5")) arrived.release();
+ *      }
+ *    });
+ *    e3.goTo(5);
+ *    arrived.acquire();
  *    e3.open();
  *    sleep(3000);
  *    e3.close();
@@ -73,4 +77,17 @@ package elevator.rmi;
  * @see     elevator.rmi.Elevators
  */
 public interface Elevator extends Motor, Door, Scale {
+  /**
+   * Sends the elevator to the given floor. The cabin moves there, brakes in
+   * time and stops exactly at the floor, and the scale follows the cabin.
+   * A subsequent <code>up</code>, <code>down</code> or <code>stop</code>
+   * cancels the trip, a subsequent <code>goTo</code> changes the floor.
+   * @param floor the integer number (0, 1, ...) of the floor to go to
+   * @exception IllegalParamException if <code>floor</code> is not a
+   *            legal floor number
+   * @throws RemoteException if failed to execute
+   * @see #whereIs() whereIs
+   * @see #stop() stop
+   */
+  public void goTo(int floor) throws RemoteException, IllegalParamException;
 }
\ No newline at end of file
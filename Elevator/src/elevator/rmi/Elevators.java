@@ -1,5 +1,7 @@
 package elevator.rmi;
 
+import java.rmi.RemoteException;
+
 /**
  * Title:        Green Elevator
  * Description:  Green Elevator, 2G1915
@@ -30,7 +32,7 @@ package elevator.rmi;
  * <p>The <code>Elevators</code> remote interface can be used to start moving
  * elevators up or down, to stop elevators, to close/open the elevator doors,
  * to get current positions of the elevators, to set/get values of the scales of
- * the elevators.
+ * the elevators, and to send an elevator to a floor where it stops exactly.
  * The <code>getElevators()</code> static method
  * of the <code>elevator.rmi.MakeAll</code> class is invoked to get a remote
  * reference to the <code>Elevators</code> object.
@@ -41,14 +43,14 @@ package elevator.rmi;
  *    Elevators elevators = MakeAll.getElevators();
  *    ...
  *    // move the 3rd elevator up to the 5th floor
- *    double where = elevators.getPosition(3);
- *    elevators.up(3);
- *    do {
- *      elevators.setScalePosition(3, (int)where);
- *      sleep(10);
- *    } while ((where = elevators.whereIs(3)) < 4.888)
- *    elevators.stop(3);
- *    elevators.setScalePosition(3, 5);
+ *    final Semaphore arrived = new Semaphore(0);
+ *    MakeAll.addArrivalListener(3, new ActionListener() {
+ *      public void actionPerformed(ActionEvent e) {
+ *        if (e.getActionCommand().equals("a 3 5")) arrived.release();
+ *      }
+ *    });
+ *    elevators.goTo(3, 5);
+ *    arrived.acquire();
  *    elevators.open(3);
  *    sleep(3000);
  *    elevators.close(3);
@@ -90,4 +92,44 @@ package elevator.rmi;
  * @see     elevator.rmi.Elevators
  */
 public interface Elevators extends Motors, Doors, Scales {
+  /**
+   * Sends an elevator to the given floor. The cabin moves there, brakes in
+   * time and stops exactly at the floor, and the scale follows the cabin.
+   * A subsequent motor command to the elevator cancels the trip, a subsequent
+   * <code>goTo</code> changes the floor.
+   * @param number the integer number (1, 2, ...) of the elevator to send
+   * @param floor the integer number (0, 1, ...) of the floor to go to
+   * @exception IllegalParamException if <code>number</code> is not a
+   *            legal elevator number or <code>floor</code> is not a legal floor number
+   * @throws RemoteException if failed to execute
+   * @see #whereIs(int)
+   * @see #stop(int)
+   */
+  public void goTo(int number, int floor) throws RemoteException, IllegalParamException;
+  /**
+   * Returns the state of all elevators in one call: the positions of the
+   * cabins, the directions of the motors, the states and movements of the
+   * doors and the positions of the scales, with a sequence number.
+   * @return the state of all elevators
+   * @throws RemoteException if failed to execute
+   * @see elevator.rmi.FleetState
+   */
+  public FleetState getFleetState() throws RemoteException;
+  /**
+   * Executes a batch of motor, door, scale and "goto" commands for any elevators
+   * in one call. The batch is rejected as a whole if any of its commands is
+   * illegal; otherwise all commands are applied at the next time step of the
+   * simulation, in the order they have been added, and take effect in the
+   * same step.
+   * @param batch the batch of commands
+   * @return the number of the time step from which the commands take effect
+   * @throws RemoteException if failed to execute, e.g. the simulation is
+   *    suspended or the batch has not been applied within
+   *    <code>ElevatorIO.SUBMIT_TIMEOUT</code>; no command has been applied then
+   * @throws IllegalParamException if the batch is <code>null</code> or too
+   *    large (see <code>CommandBatch.MAX_SIZE</code>), or any command has an
+   *    illegal elevator number, floor or code
+   * @see elevator.rmi.CommandBatch
+   */
+  public long submit(CommandBatch batch) throws RemoteException, IllegalParamException;
 }
\ No newline at end of file
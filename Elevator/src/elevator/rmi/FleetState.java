@@ -0,0 +1,216 @@
+package elevator.rmi;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * The state of all elevators as of one step of the simulation engine: the
+ * position of each cabin, the direction of its motor, the state and the
+ * movement of its door and the position of its scale, returned by
+ * <code>getFleetState</code> of the <code>GetAll</code> and
+ * <code>Elevators</code> remote interfaces in one round trip.
+ * <p>The state is kept in primitive arrays and written by
+ * <code>writeExternal</code> as a sequence number followed by a few bytes per
+ * elevator, so the payload stays compact for large buildings. The sequence
+ * number is the step number of the engine; a larger number means a later state.
+ * <p>A <code>FleetState</code> may be filled in place (see <code>set</code>);
+ * its arrays are only reallocated when the number of elevators grows.
+ * Elevators are numbered 1, 2, ... as in the other remote interfaces.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.rmi.GetAll#getFleetState()
+ * @see     elevator.rmi.Elevators#getFleetState()
+ */
+public final class FleetState implements Externalizable {
+  private static final long serialVersionUID = 1L;
+  /**
+   * The largest number of elevators in a state, as many as the Elevators
+   * application runs with the "-headless" option
+   */
+  public static final int MAX_SIZE = 16384;
+  private long sequence = 0;
+  private int size = 0;
+  private double[] position = new double[0];
+  private byte[] direction = new byte[0];
+  private byte[] doorStatus = new byte[0];
+  private byte[] doorDirection = new byte[0];
+  private int[] scale = new int[0];
+  /**
+   * Creates an empty state (no elevators). Also used by the serialization.
+   */
+  public FleetState() {
+  }
+  /**
+   * Creates an empty state with room for the given number of elevators.
+   * @param size the number of elevators
+   */
+  public FleetState(int size) {
+    resize(size);
+  }
+  /**
+   * Sets the number of elevators, reallocating the arrays only if they are
+   * too short.
+   * @param size the number of elevators
+   */
+  public void resize(int size) {
+    if (position.length < size) {
+      position = new double[size];
+      direction = new byte[size];
+      doorStatus = new byte[size];
+      doorDirection = new byte[size];
+      scale = new int[size];
+    }
+    this.size = size;
+  }
+  /**
+   * Sets the sequence number.
+   * @param sequence the step number of the engine
+   */
+  public void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+  /**
+   * Sets the state of one elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @param position the position of the cabin in "floor units"
+   * @param direction the direction of the motor (-1, 0, 1)
+   * @param doorStatus the state of the door (<code>DoorStatus.CLOSED</code>, ...
+   *    <code>DoorStatus.OPEN4</code>)
+   * @param doorDirection the movement of the door: closing (-1), still (0), opening (1)
+   * @param scale the position of the scale
+   */
+  public void set(int number, double position, int direction, int doorStatus,
+                  int doorDirection, int scale) {
+    int i = number - 1;
+    this.position[i] = position;
+    this.direction[i] = (byte)direction;
+    this.doorStatus[i] = (byte)doorStatus;
+    this.doorDirection[i] = (byte)doorDirection;
+    this.scale[i] = scale;
+  }
+  /**
+   * Copies the given state into this one.
+   * @param other the state to be copied
+   * @return this state
+   */
+  public FleetState set(FleetState other) {
+    resize(other.size);
+    sequence = other.sequence;
+    System.arraycopy(other.position, 0, position, 0, size);
+    System.arraycopy(other.direction, 0, direction, 0, size);
+    System.arraycopy(other.doorStatus, 0, doorStatus, 0, size);
+    System.arraycopy(other.doorDirection, 0, doorDirection, 0, size);
+    System.arraycopy(other.scale, 0, scale, 0, size);
+    return this;
+  }
+  /**
+   * Returns the sequence number: the step number of the engine at which the
+   * state has been taken.
+   * @return the sequence number
+   */
+  public long getSequence() {
+    return sequence;
+  }
+  /**
+   * Returns the number of elevators.
+   * @return the number of elevators
+   */
+  public int size() {
+    return size;
+  }
+  /**
+   * Returns the position of the cabin of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return the position in "floor units"
+   */
+  public double getPosition(int number) {
+    return position[check(number)];
+  }
+  /**
+   * Returns the direction of the motor of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return 1 (upwards), -1 (downwards), 0 (stopped)
+   */
+  public int getDirection(int number) {
+    return direction[check(number)];
+  }
+  /**
+   * Returns the state of the door of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return <code>DoorStatus.CLOSED</code>, <code>DoorStatus.OPEN1</code>, ...
+   *    <code>DoorStatus.OPEN4</code> (completely open)
+   */
+  public int getDoorStatus(int number) {
+    return doorStatus[check(number)];
+  }
+  /**
+   * Returns the movement of the door of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return 1 (opening), -1 (closing), 0 (still)
+   */
+  public int getDoorDirection(int number) {
+    return doorDirection[check(number)];
+  }
+  /**
+   * Returns the position of the scale of an elevator.
+   * @param number the integer number (1, 2, ...) of the elevator
+   * @return the level shown by the scale
+   */
+  public int getScalePosition(int number) {
+    return scale[check(number)];
+  }
+  private int check(int number) {
+    if (number < 1 || number > size)
+      throw new IndexOutOfBoundsException("Elevator " + number);
+    return number - 1;
+  }
+  /**
+   * Writes the sequence number, the number of elevators and, for each
+   * elevator, the position, the direction, the state and the movement of the
+   * door and the scale.
+   * @param out the stream to write to
+   * @throws IOException if failed to write
+   */
+  public void writeExternal(ObjectOutput out) throws IOException {
+    out.writeLong(sequence);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeDouble(position[i]);
+      out.writeByte(direction[i]);
+      out.writeByte(doorStatus[i]);
+      out.writeByte(doorDirection[i]);
+      out.writeInt(scale[i]);
+    }
+  }
+  /**
+   * Reads a state written by <code>writeExternal</code>.
+   * @param in the stream to read from
+   * @throws IOException if failed to read
+   * @throws InvalidObjectException if the number of elevators is negative or
+   *    larger than <code>MAX_SIZE</code>
+   */
+  public void readExternal(ObjectInput in) throws IOException {
+    sequence = in.readLong();
+    int n = in.readInt();
+    if (n < 0 || n > MAX_SIZE) throw new InvalidObjectException("State of " + n + " elevators");
+    resize(n);
+    for (int i = 0; i < size; i++) {
+      position[i] = in.readDouble();
+      direction[i] = in.readByte();
+      doorStatus[i] = in.readByte();
+      doorDirection[i] = in.readByte();
+      scale[i] = in.readInt();
+    }
+  }
+}
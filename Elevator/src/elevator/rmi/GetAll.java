@@ -93,11 +93,43 @@ public interface GetAll extends Remote {
    */
   public Elevators getElevators() throws RemoteException;
   /**
-   * Returns the velocity of an elevator in "floor units" per millisecond.
-   * @return A double velocity of an elevator in "floor units" per millisecond.
+   * Returns the velocity of an elevator in "floor units" per simulated millisecond.
+   * @return A double velocity of an elevator in "floor units" per simulated millisecond.
    * @throws RemoteException is failed to execute
    */
   public double getVelocity() throws RemoteException;
+  /**
+   * Returns the current time of the simulation clock.
+   * @return The simulated time in milliseconds since the Elevators has started.
+   * @throws RemoteException is failed to execute
+   * @see elevator.rmi.Clock
+   */
+  public long getTime() throws RemoteException;
+  /**
+   * Returns the rate of the simulation clock.
+   * @return The number of simulated milliseconds per real millisecond.
+   * @throws RemoteException is failed to execute
+   * @see elevator.rmi.Clock
+   */
+  public double getRate() throws RemoteException;
+  /**
+   * Returns the state of all elevators in one call: the positions of the
+   * cabins, the directions of the motors, the states and movements of the
+   * doors and the positions of the scales, with a sequence number.
+   * @return The state of all elevators.
+   * @throws RemoteException is failed to execute
+   * @see elevator.rmi.FleetState
+   */
+  public FleetState getFleetState() throws RemoteException;
+  /**
+   * Sets the rate of the simulation clock, e.g. 100 to run the simulation
+   * 100 times faster than the real time.
+   * @param rate The number of simulated milliseconds per real millisecond.
+   * @throws IllegalParamException if <code>rate</code> is not positive
+   * @throws RemoteException is failed to execute
+   * @see elevator.rmi.Clock
+   */
+  public void setRate(double rate) throws RemoteException, IllegalParamException;
   /**
    * Returns the total number of elevators.
    * @return An interger number of elevators.
@@ -204,7 +236,7 @@ public interface GetAll extends Remote {
   public void makeInsideListener(int number, RemoteActionListener listener) throws RemoteException;
   /**
    * Creates <code>PositionListener</code> that receives action events
-   * from the elevator timer and forwards the events with a current position of
+   * from the simulation engine and forwards the events with a current position of
    * an elevator with the given number to the
    * specified action listener via the listener's <code>RemoteActionListener</code> remote
    * interface.
@@ -216,6 +248,36 @@ public interface GetAll extends Remote {
    * @see elevator.rmi.RemoteActionListener
    */
   public void makePositionListener(int number, RemoteActionListener listener) throws RemoteException;
+  /**
+   * Creates <code>CabinListener</code> that receives arrival events
+   * from the simulation engine when the cabin of an elevator with the given number
+   * stops at a floor ("a <i>n f</i>") or passes a floor without stopping
+   * ("c <i>n f</i>"), and forwards the events to the
+   * specified action listener via the listener's <code>RemoteActionListener</code> remote
+   * interface.
+   * @param number is the relative number (0, 1, ...) of the elevator whose
+   *  events to forward, the number of elevators for all elevators
+   * @param listener is <code>RemoteActionListener</code> to forward events to
+   * @throws RemoteException if failed to make an
+   *    <code>CabinListener</code> object.
+   * @see elevator.rmi.RemoteActionListener
+   */
+  public void makeArrivalListener(int number, RemoteActionListener listener) throws RemoteException;
+  /**
+   * Creates <code>CabinListener</code> that receives door events
+   * from the simulation engine when the door of an elevator with the given number
+   * becomes completely open ("d <i>n f</i> 1") or closed ("d <i>n f</i> -1"),
+   * and forwards the events to the
+   * specified action listener via the listener's <code>RemoteActionListener</code> remote
+   * interface.
+   * @param number is the relative number (0, 1, ...) of the elevator whose
+   *  events to forward, the number of elevators for all elevators
+   * @param listener is <code>RemoteActionListener</code> to forward events to
+   * @throws RemoteException if failed to make an
+   *    <code>CabinListener</code> object.
+   * @see elevator.rmi.RemoteActionListener
+   */
+  public void makeDoorListener(int number, RemoteActionListener listener) throws RemoteException;
   /**
    * Creates <code>VelocityListener</code> that receives an action event
    * when the velocity of elevators has changed by the velocity slider.
@@ -82,7 +82,10 @@ import java.awt.event.ActionListener;
  *                                          an integer number of the floor where
  *                                          the button was pressed, <i>d</i> is
  *                                          the direction, upwards or downwards,
- *                                          assigned to the button.</tr>
+ *                                          assigned to the button. In the destination
+ *                                          dispatch mode, the command is
+ *                                          "t <i>f g</i>", where <i>g</i> is
+ *                                          the floor chosen to go to.</tr>
  * <tr><td><code>addInsideListener</code><td>Adds an <code>ActionListener</code> object(s)
  *                                          to receive events inside button panel(s).
  *                                          An action command that comes with an
@@ -107,6 +110,22 @@ import java.awt.event.ActionListener;
  *                                          moving elevator. For example, "f 2 2.5"
  *                                          means that the 2nd elevator is (was?) exactly
  *                                          in between the 2nd and the 3rd floors.</tr>
+ * <tr><td><code>addArrivalListener</code><td>Adds <code>ActionListener</code> object(s)
+ *                                          to be notified when an elevator cabin stops
+ *                                          at a floor or passes a floor. An action
+ *                                          command that comes with an event is
+ *                                          "a <i>n f</i>" (the elevator number <i>n</i>
+ *                                          has arrived at the floor <i>f</i>) or
+ *                                          "c <i>n f</i>" (the elevator is passing
+ *                                          the floor <i>f</i> without stopping).</tr>
+ * <tr><td><code>addDoorListener</code><td>Adds <code>ActionListener</code> object(s)
+ *                                          to be notified when the door of an elevator
+ *                                          has become completely open or closed.
+ *                                          An action command that comes with an event is
+ *                                          "d <i>n f</i> 1" (the door of the elevator
+ *                                          number <i>n</i> standing at the floor <i>f</i>
+ *                                          is open) or "d <i>n f</i> -1" (the door
+ *                                          is closed).</tr>
  * <tr><td><code>addVelocityListener</code><td>Adds <code>ActionListener</code> object(s)
  *                                          for monitoring changes of the elevators' velocity
  *                                          that have been made by the velocity slider.
@@ -204,10 +223,14 @@ public final class MakeAll {
   private static Scales scales = null;
   private static Elevator[] elevator = null;
   private static Elevators elevators = null;
+  private static CachedElevators cachedElevators = null;
   private static LinkButton[] insideButtons = null;
   private static LinkButton[] floorButton = null;
   private static LinkButton[] position = null;
   private static LinkButton velocity = null;
+  private static LinkButton[] arrival = null;
+  private static LinkButton[] doorEvents = null;
+  private static Clock clock = null;
     /**
      * Disallow anyone from creating one of <code>MakeAll</code>
      */
@@ -594,6 +617,98 @@ public final class MakeAll {
     }
     position[i].addActionListener(listener);
   }
+  /**
+   * Adds one <code>ActionListener</code> to be notified when a cabin of any
+   * elevator stops at a floor or passes a floor. An action command that comes
+   * with an action event is "a <i>n f</i>" (the elevator number <i>n</i> has
+   * arrived at the floor <i>f</i>) or "c <i>n f</i>" (the elevator is passing the
+   * floor <i>f</i> without stopping).
+   * @param listener <code>ActionListener</code> to be added.
+   * @throws RemoteException if failed to add the listener
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @throws IllegalParamException if <code>listener</code> is null
+   */
+  public static void addArrivalListener(ActionListener listener)
+        throws RemoteException, MalformedURLException, NotBoundException  {
+    addArrivalListener(0, listener);
+  }
+  /**
+   * Adds one <code>ActionListener</code> to be notified when the cabin of one
+   * elevator stops at a floor or passes a floor. An action command that comes
+   * with an action event is "a <i>n f</i>" (the elevator number <i>n</i> has
+   * arrived at the floor <i>f</i>) or "c <i>n f</i>" (the elevator is passing the
+   * floor <i>f</i> without stopping).
+   * @param number The integer number of the elevator, 0 for all elevators
+   * @param listener <code>ActionListener</code> to be added.
+   * @throws RemoteException if failed to add the listener
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @throws IllegalParamException if <code>number</code> is not a legal elevator
+   *      number or <code>listener</code> is null
+   */
+  public static void addArrivalListener(int number, ActionListener listener)
+     throws RemoteException, MalformedURLException, NotBoundException  {
+    if (listener == null) throw new IllegalParamException();
+    if (getAll == null) init(host, java.rmi.registry.Registry.REGISTRY_PORT);
+    if (number > numberOfElevators || number < 0) throw new IllegalParamException();
+    if (arrival == null) arrival = new LinkButton[numberOfElevators + 1];
+    // special case: the last LinkButton for all elevators
+    int i = (number == 0) ? numberOfElevators : number - 1;
+    if (arrival[i] == null) {
+      arrival[i] = new LinkButton();
+      getAll.makeArrivalListener(i, (RemoteActionListener)arrival[i]);
+    }
+    arrival[i].addActionListener(listener);
+  }
+  /**
+   * Adds one <code>ActionListener</code> to be notified when the door of any
+   * elevator has become completely open or closed. An action command that comes
+   * with an action event is "d <i>n f</i> 1" (the door of the elevator
+   * number <i>n</i> standing at the floor <i>f</i> is open) or "d <i>n f</i> -1"
+   * (the door is closed).
+   * @param listener <code>ActionListener</code> to be added.
+   * @throws RemoteException if failed to add the listener
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @throws IllegalParamException if <code>listener</code> is null
+   */
+  public static void addDoorListener(ActionListener listener)
+        throws RemoteException, MalformedURLException, NotBoundException  {
+    addDoorListener(0, listener);
+  }
+  /**
+   * Adds one <code>ActionListener</code> to be notified when the door of one
+   * elevator has become completely open or closed. An action command that comes
+   * with an action event is "d <i>n f</i> 1" (the door of the elevator
+   * number <i>n</i> standing at the floor <i>f</i> is open) or "d <i>n f</i> -1"
+   * (the door is closed).
+   * @param number The integer number of the elevator, 0 for all elevators
+   * @param listener <code>ActionListener</code> to be added.
+   * @throws RemoteException if failed to add the listener
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @throws IllegalParamException if <code>number</code> is not a legal elevator
+   *      number or <code>listener</code> is null
+   */
+  public static void addDoorListener(int number, ActionListener listener)
+     throws RemoteException, MalformedURLException, NotBoundException  {
+    if (listener == null) throw new IllegalParamException();
+    if (getAll == null) init(host, java.rmi.registry.Registry.REGISTRY_PORT);
+    if (number > numberOfElevators || number < 0) throw new IllegalParamException();
+    if (doorEvents == null) doorEvents = new LinkButton[numberOfElevators + 1];
+    // special case: the last LinkButton for all elevators
+    int i = (number == 0) ? numberOfElevators : number - 1;
+    if (doorEvents[i] == null) {
+      doorEvents[i] = new LinkButton();
+      getAll.makeDoorListener(i, (RemoteActionListener)doorEvents[i]);
+    }
+    doorEvents[i].addActionListener(listener);
+  }
   /**
    * Adds one <code>ActionListener</code> for monitoring chnages in elevator velocity.
    * When the velocity has changed by the velocity gauge, the listener receives
@@ -618,6 +733,22 @@ public final class MakeAll {
     }
     velocity.addActionListener(listener);
   }
+  /**
+   * Returns the local mirror of the simulation clock of the Elevators. Controllers
+   * should sleep against this clock, so that they behave identically at any rate
+   * of the simulation.
+   * @return The <code>Clock</code> object.
+   * @throws RemoteException if failed to read the simulation clock
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @see elevator.rmi.Clock
+   */
+  public static Clock getClock() throws RemoteException, MalformedURLException, NotBoundException  {
+    if (getAll == null) init(host, java.rmi.registry.Registry.REGISTRY_PORT);
+    if (clock == null) clock = new Clock(getAll);
+    return clock;
+  }
   /**
    * Returns an object with the <code>Door</code> interface which is
    *    used for controlling a door of the elevator with the given number.
@@ -725,6 +856,22 @@ public final class MakeAll {
     for (int i = 0; i < number.length; i++) elevator[i] = getElevator(i);
     return elevator;
   }
+  /**
+   * Returns the state of all elevators (positions, directions of motors,
+   *    states of doors, scale positions) obtained in one remote call.
+   *    A new <code>FleetState</code> is received with every call.
+   * @return The state of all elevators.
+   * @throws RemoteException if failed to get the state.
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @see elevator.rmi.FleetState
+   */
+  public static FleetState getFleetState()
+        throws RemoteException, MalformedURLException, NotBoundException  {
+    if (getAll == null) init(host, java.rmi.registry.Registry.REGISTRY_PORT);
+    return getAll.getFleetState();
+  }
   /**
    * Returns an object with the <code>Elevators</code> interface that is
    *    used for controlling all components (motors, doors, scales) of all
@@ -741,6 +888,51 @@ public final class MakeAll {
     if (elevators == null) elevators = getAll.getElevators();
     return elevators;
   }
+  /**
+   * Returns a local view of all elevators with the <code>Elevators</code>
+   *    interface that keeps the positions of the cabins on the client side.
+   *    The view is added as a position listener for all elevators, so
+   *    <code>whereIs</code> and <code>whereAre</code> read positions pushed by
+   *    the Elevators application and only call it when the position of a
+   *    moving cabin is older than the staleness bound in simulated time.
+   *    All other commands are forwarded via Java RMI.
+   *    All calls return the same view.
+   * @return The <code>CachedElevators</code> view.
+   * @throws RemoteException if failed to get an <code>Elevators</code> object
+   *      or to add the position listener.
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @see elevator.rmi.CachedElevators
+   */
+  public static synchronized CachedElevators getCachedElevators()
+        throws RemoteException, MalformedURLException, NotBoundException  {
+    if (cachedElevators == null) {
+      CachedElevators view = new CachedElevators(getElevators(), getNumberOfElevators(),
+          getClock());
+      addPositionListener(view);
+      cachedElevators = view;
+    }
+    return cachedElevators;
+  }
+  /**
+   * Returns a local view of the elevator with the given number with the
+   *    <code>Elevator</code> interface, whose <code>whereIs</code> reads the
+   *    position kept on the client side (see <code>getCachedElevators()</code>).
+   * @param number The integer number (1, 2, ...) of the elevator
+   * @return An object with the <code>Elevator</code> interface.
+   * @throws RemoteException if failed to get the view.
+   * @throws IllegalParamException if <code>number</code> is not a legal
+   *    elevator number.
+   * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
+   *      is not an appropriately formatted URL.
+   * @throws NotBoundException is failed to obtain a reference to the getAll
+   * @see elevator.rmi.CachedElevators
+   */
+  public static Elevator getCachedElevator(int number)
+        throws RemoteException, IllegalParamException, MalformedURLException, NotBoundException {
+    return getCachedElevators().getElevator(number);
+  }
   /**
    * Returns the total number of elevators.
    * @return An interger number of elevators.
@@ -826,8 +1018,9 @@ public final class MakeAll {
     return motors;
   }
   /**
-   * Returns the velocity of an elevator in "floor units" per millisecond.
-   * @return A float velocity of an elevator in "floor units" per millisecond.
+   * Returns the velocity of an elevator in "floor units" per simulated millisecond.
+   * @return A float velocity of an elevator in "floor units" per simulated millisecond.
+   * @see elevator.rmi.Clock
    * @throws RemoteException is failed to execute
    * @throws MalformedURLException if the URL of the Elevators proxy object (getALL)
    *      is not an appropriately formatted URL.
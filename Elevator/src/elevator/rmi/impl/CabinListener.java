@@ -0,0 +1,106 @@
+package elevator.rmi.impl;
+
+import java.rmi.RemoteException;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.LinkedBlockingQueue;
+import elevator.ElevatorEngine;
+import elevator.Elevators;
+import elevator.rmi.RemoteActionListener;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * The helper class <code>CabinListener</code> that implements the
+ * <code>java.awt.event.ActionListener</code> interface for receiving cabin events
+ * from the simulation engine (see <code>ElevatorEngine.addCabinListener</code>)
+ * of one elevator with a given number or all elevators (special case):
+ * arrival events ("a <i>n f</i>") and passing events ("c <i>n f</i>"), or
+ * door events ("d <i>n f</i> 1" - completely open, "d <i>n f</i> -1" -
+ * completely closed).
+ * An object with the <code>CabinListener</code> class forwards the
+ * action events via RMI to a remote listener with the
+ * <code>RemoteActionListener</code> remote interface. The events are queued
+ * and forwarded in a separate thread, in the order they have happened,
+ * so a slow remote listener never delays the engine.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see java.awt.event.ActionListener
+ * @see java.awt.event.ActionEvent
+ */
+public class CabinListener extends Thread implements ActionListener {
+  /**
+   * The kinds of events forwarded by an arrival listener
+   */
+  public final static String ARRIVAL = "ac";
+  /**
+   * The kinds of events forwarded by a door listener
+   */
+  public final static String DOOR = "d";
+
+  private RemoteActionListener listener;
+  private String kinds;
+  private String prefix;
+  private LinkedBlockingQueue<ActionEvent> queue = new LinkedBlockingQueue<ActionEvent>();
+  private ElevatorEngine engine = Elevators.engine;
+
+    /**
+     * Allocates and starts a new <code>CabinListener</code> used to receive cabin
+     * events of the given elevator from the simulation engine and forward the events
+     * to a remote listener.
+     * @param number The integer index of the elevator (0, 1, ...)
+     *    whose events to forward, the number of elevators to forward events
+     *    of all elevators.
+     * @param kinds The kinds of events to forward, <code>ARRIVAL</code>
+     *    or <code>DOOR</code>
+     * @param listener The <code>RemoteActionListener</code> to which
+     *    this <code>CabinListener</code> must forward action events
+     *    from the engine
+     */
+  protected CabinListener(int number, String kinds, RemoteActionListener listener) {
+    super("CabinListener");
+    this.listener = listener;
+    this.kinds = kinds;
+    if (number < Elevators.numberOfElevators) prefix = " " + (number + 1) + " ";
+    setDaemon(true);
+    start();
+    if (engine != null) engine.addCabinListener(this);
+  }
+  /**
+   * Invoked by the simulation engine on a cabin event. The event is queued
+   * to be forwarded if it is of the kinds and of the elevator of
+   * this <code>CabinListener</code>.
+   */
+  public void actionPerformed(ActionEvent e) {
+    String command = e.getActionCommand();
+    if (kinds.indexOf(command.charAt(0)) < 0) return;
+    if (prefix != null && !command.startsWith(prefix, 1)) return;
+    queue.offer(e);
+  }
+  /**
+   * Forwards queued events to the remote listener until the listener fails.
+   */
+  public void run() {
+    try {
+      while (true)
+        listener.actionPerformed(queue.take());
+    } catch (InterruptedException ex) {
+      ;
+    } catch (RemoteException ex) {
+      removeCabinListener();
+    }
+  }
+  private void removeCabinListener() {
+    System.err.println("Got RemoteException while calling back to a cabin listener");
+    System.err.println("Removing the listener");
+    if (engine != null) engine.removeCabinListener(this);
+    listener = null; // hopefully will be gc-ed also
+    queue.clear();
+  }
+}
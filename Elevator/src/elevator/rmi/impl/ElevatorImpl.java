@@ -33,14 +33,14 @@ import elevator.rmi.IllegalParamException;
  *    MakeAll.init(localhost);
  *     ...
  *    Elevator e3 = MakeAll.getElevator(3);
- *    double where = e3.whereIs();
- *    e3.up();
- *    do {
- *      e3.setScalePosition((int)where);
- *      sleep(10);
- *    } while ((where = e3.whereIs()) < 4.999)
- *    e3.stop();
- *    e3.setScalePosition(5);
+ *    final Semaphore arrived = new Semaphore(0);
+ *    MakeAll.addArrivalListener(3, new ActionListener() {
+ *      public void actionPerformed(ActionEvent e) {
+ *        if (e.getActionCommand().equals("a 3 5")) arrived.release();
+ *      }
+ *    });
+ *    e3.goTo(5);
+ *    arrived.acquire();
  *    e3.open();
  *    sleep(3000);
  *    e3.close();
@@ -76,6 +76,9 @@ public class ElevatorImpl extends UnicastRemoteObject implements Elevator {
   public void up() throws RemoteException { // corresponds to "m number 1"
     io.motorRMI(number, Elevators.UP);
   }
+  public void goTo(int floor) throws RemoteException, IllegalParamException { // corresponds to "g number floor"
+    io.goToRMI(number, floor);
+  }
   public double whereIs() throws RemoteException { // corresponds to "w number"
     return io.whereIs(number);
   }
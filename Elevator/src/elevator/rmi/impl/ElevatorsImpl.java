@@ -6,6 +6,8 @@ import elevator.ElevatorIO;
 import elevator.ElevatorGUI;
 import elevator.Elevators;
 import elevator.rmi.IllegalParamException;
+import elevator.rmi.FleetState;
+import elevator.rmi.CommandBatch;
 import elevator.rmi.RemoteActionListener;
 
 /**
@@ -34,14 +36,14 @@ import elevator.rmi.RemoteActionListener;
  *    Elevators elevators = MakeAll.getElevators();
  *    ...
  *    // move the 3rd elevator up to the 5th floor
- *    double where = elevators.whereIs(3);
- *    elevators.up(3);
- *    do {
- *      elevators.setScalePosition(3, (int)where);
- *      sleep(10);
- *    } while ((where = elevators.whereIs(3)) < 4.888)
- *    elevators.stop(3);
- *    elevators.setScalePosition(3, 5);
+ *    final Semaphore arrived = new Semaphore(0);
+ *    MakeAll.addArrivalListener(3, new ActionListener() {
+ *      public void actionPerformed(ActionEvent e) {
+ *        if (e.getActionCommand().equals("a 3 5")) arrived.release();
+ *      }
+ *    });
+ *    elevators.goTo(3, 5);
+ *    arrived.acquire();
  *    elevators.open(3);
  *    sleep(3000);
  *    elevators.close(3);
@@ -245,6 +247,20 @@ public class ElevatorsImpl extends UnicastRemoteObject implements elevator.rmi.E
   public void up(int[] number) throws RemoteException, IllegalParamException {
     for (int i = 0; i < number.length; i++) io.motorRMI(number[i], Elevators.UP);
   }
+  /**
+   * Send an elevator to a floor. The simulator moves the cabin there and
+   * stops it exactly at the floor.
+   *
+   * @param number the integer number (1, 2, ...) of the elevator to send
+   * @param floor the integer number of the floor to go to
+   * @exception IllegalParamException if <code>number</code> is not a
+   * 		legal elevator number or <code>floor</code> is not a legal floor number
+   * @throws RemoteException if failed to execute
+   * @see     #stop(int)
+   */
+  public void goTo(int number, int floor) throws RemoteException, IllegalParamException {
+    io.goToRMI(number, floor);
+  }
   /**
    * Get current positions of all elevators.
    *
@@ -537,5 +553,29 @@ public class ElevatorsImpl extends UnicastRemoteObject implements elevator.rmi.E
       throws RemoteException, IllegalParamException {
     io.scaleRMI(number, level);
   }
+  /**
+   * Get the state of all elevators in one call: positions, directions of
+   * motors, states of doors and scale positions.
+   *
+   * @return    the state of all elevators
+   * @exception RemoteException if failed to execute
+   * @see     elevator.rmi.FleetState
+   */
+  public FleetState getFleetState() throws RemoteException {
+    return io.getFleetState(null);
+  }
+  /**
+   * Execute a batch of motor, door, scale and "goto" commands at the next
+   * time step of the simulation.
+   *
+   * @param     batch the batch of commands
+   * @return    the number of the time step from which the commands take effect
+   * @exception RemoteException if failed to execute
+   * @exception IllegalParamException if any command is illegal
+   * @see     elevator.rmi.CommandBatch
+   */
+  public long submit(CommandBatch batch)
+      throws RemoteException, IllegalParamException {
+    return io.submit(batch);
+  }
 }
-
@@ -20,7 +20,8 @@ import elevator.rmi.RemoteActionListener;
 /**
  * The helper class <code>FloorListener</code> that implements the
  * <code>java.awt.event.ActionListener</code> interface for receiving action
- * events from floor buttons.
+ * events from floor buttons: arrow buttons ("b <i>f d</i>") or, in the
+ * destination dispatch mode, destination call buttons ("t <i>f g</i>").
  * An object with the <code>FloorListener</code> class forwards the
  * action events via RMI to a remote listener with the
  * <code>RemoteActionListener</code> remote interface.
@@ -35,6 +36,7 @@ public class FloorListener implements ActionListener {
   private int numberOfFloors = Elevators.numberOfFloors;
   private JButton[] arrowDownButton = ElevatorGUI.arrowDownButton;
   private JButton[] arrowUpButton = ElevatorGUI.arrowUpButton;
+  private JButton[] destinationButton = ElevatorGUI.destinationButton;
     /**
      * Allocates a new <code>FloorButtonListener</code> used to receive events
      *  from floor buttons and to forward the events to a remote listener.
@@ -52,12 +54,16 @@ public class FloorListener implements ActionListener {
           arrowDownButton[i].addActionListener(this);
         if (arrowUpButton != null && arrowUpButton[i] != null)
           arrowUpButton[i].addActionListener(this);
+        if (destinationButton != null && destinationButton[i] != null)
+          destinationButton[i].addActionListener(this);
       }
     } else { // only one floor
       if (arrowDownButton != null && arrowDownButton[floor] != null)
         arrowDownButton[floor].addActionListener(this);
       if (arrowUpButton != null && arrowUpButton[floor] != null)
         arrowUpButton[floor].addActionListener(this);
+      if (destinationButton != null && destinationButton[floor] != null)
+        destinationButton[floor].addActionListener(this);
     }
   }
   /**
@@ -77,12 +83,16 @@ public class FloorListener implements ActionListener {
             arrowDownButton[i].removeActionListener(this);
           if (arrowUpButton[i] != null)
             arrowUpButton[i].removeActionListener(this);
+          if (destinationButton[i] != null)
+            destinationButton[i].removeActionListener(this);
         }
       } else { // one floor
         if (arrowDownButton[floor] != null)
           arrowDownButton[floor].removeActionListener(this);
         if (arrowUpButton[floor] != null)
           arrowUpButton[floor].removeActionListener(this);
+        if (destinationButton[floor] != null)
+          destinationButton[floor].removeActionListener(this);
       }
       listener = null; // hopefully will be gc-ed also
     }
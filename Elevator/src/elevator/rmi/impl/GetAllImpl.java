@@ -3,7 +3,6 @@ package elevator.rmi.impl;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.RemoteException;
 import elevator.rmi.*;
-import elevator.ElevatorGUI;
 
 /**
  * Title:        Green Elevator
@@ -84,6 +83,9 @@ public class GetAllImpl extends UnicastRemoteObject implements GetAll {
           throws RemoteException {
     new FloorListener(floor, listener);
   }
+  public FleetState getFleetState() throws RemoteException {
+    return elevator.ElevatorGUI.io.getFleetState(null);
+  }
   public int getNumberOfElevators() throws RemoteException {
     return numberOfElevators;
   }
@@ -96,6 +98,12 @@ public class GetAllImpl extends UnicastRemoteObject implements GetAll {
   public void makePositionListener(int number, RemoteActionListener listener) throws RemoteException {
     new PositionListener(number, listener);
   }
+  public void makeArrivalListener(int number, RemoteActionListener listener) throws RemoteException {
+    new CabinListener(number, CabinListener.ARRIVAL, listener);
+  }
+  public void makeDoorListener(int number, RemoteActionListener listener) throws RemoteException {
+    new CabinListener(number, CabinListener.DOOR, listener);
+  }
   public void makeVelocityListener(RemoteActionListener listener) throws RemoteException {
     new VelocityListener(listener);
   }
@@ -133,6 +141,15 @@ public class GetAllImpl extends UnicastRemoteObject implements GetAll {
     return topFloor;
   }
   public double getVelocity() throws RemoteException {
-    return ElevatorGUI.velocity;
+    return elevator.Elevators.engine.getVelocity();
+  }
+  public long getTime() throws RemoteException {
+    return elevator.Elevators.clock.currentTimeMillis();
+  }
+  public double getRate() throws RemoteException {
+    return elevator.Elevators.clock.getRate();
+  }
+  public void setRate(double rate) throws RemoteException, IllegalParamException {
+    if (!elevator.Elevators.clock.setRate(rate)) throw new IllegalParamException();
   }
 }
\ No newline at end of file
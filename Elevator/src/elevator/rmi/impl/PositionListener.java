@@ -3,9 +3,10 @@ package elevator.rmi.impl;
 import java.rmi.RemoteException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import javax.swing.Timer;
 import elevator.ElevatorGUI;
 import elevator.ElevatorIO;
+import elevator.ElevatorEngine;
+import elevator.FleetSnapshot;
 import elevator.Elevators;
 import elevator.rmi.RemoteActionListener;
 import elevator.rmi.IllegalParamException;
@@ -21,96 +22,122 @@ import elevator.rmi.IllegalParamException;
 /**
  * The helper class <code>PositionListener</code> that implements the
  * <code>java.awt.event.ActionListener</code> interface for receiving action
- * events from an the elevator timer and create an action event
+ * events from the simulation engine after each time step and create an action event
  * with a current position of one elevator with a given  number or all elevators
  * (special case).
  * An object with the <code>PositionListener</code> class forwards the
  * action events via RMI to a remote listener with the
- * <code>RemoteActionListener</code> remote interface.
+ * <code>RemoteActionListener</code> remote interface. The engine only copies
+ * the positions into a buffer of this listener; the positions are forwarded in
+ * a separate thread, so a slow remote listener never delays the engine. If the
+ * remote listener is slower than the engine, the positions of the steps it has
+ * missed are skipped and it gets the latest ones.
  * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
  * @version 1.0
  * @see java.awt.event.ActionListener
  * @see java.awt.event.ActionEvent
  */
-public class PositionListener implements ActionListener {
+public class PositionListener extends Thread implements ActionListener {
 
   private RemoteActionListener listener;
-  private int number;
-  private double oldPosition, newPosition;
-  private double[] oldPositions, newPositions;
+  private int from, to; // the range of indices of elevators to monitor
+  private double[] latest; // the latest positions, guarded by this
+  private boolean fresh = false; // whether latest has not been forwarded yet
+  private double[] sent; // the positions last forwarded
+  private double[] positions; // the positions being forwarded
+  private Object source;
+  private int id;
+  private StringBuffer position = new StringBuffer();
   private int numberOfElevators = Elevators.numberOfElevators;
   private ElevatorIO io = ElevatorGUI.io;
-  private Timer timer = ElevatorGUI.timer;
+  private ElevatorEngine engine = Elevators.engine;
   private String eol = System.getProperty("line.separator", "\n");
 
     /**
-     * Allocates a new <code>PositionListener</code> used to receive an event
-     *  from the elevator time, include a current position of the given elevator
+     * Allocates and starts a new <code>PositionListener</code> used to receive an event
+     *  from the simulation engine, include a current position of the given elevator
      *  to the event and forward the event to a remote listener.
      * @param number The integer index of the elevator (0, 1, ...)
      *    whose position to monitor.
      * @param listener The <code>RemoteActionListener</code> to which
      *    this <code>PositionListener</code> must forward action events
-     *    from the timer
+     *    from the engine
      */
   protected PositionListener(int number, RemoteActionListener listener)
         throws IllegalParamException {
+    super("PositionListener");
     this.listener = listener;
-    this.number = number;
-    timer = ElevatorGUI.timer;
-    if (timer != null) timer.addActionListener(this);
-    if (number == numberOfElevators)
-      newPositions = oldPositions = io.whereAre();
-    else newPosition = oldPosition = io.whereIs(number + 1);
+    if (number == numberOfElevators) {
+      from = 0;
+      to = numberOfElevators;
+      sent = io.whereAre();
+    } else {
+      from = number;
+      to = number + 1;
+      sent = new double[] {io.whereIs(number + 1)};
+    }
+    latest = new double[to - from];
+    positions = new double[to - from];
+    setDaemon(true);
+    start();
+    if (engine != null) engine.addActionListener(this);
   }
   /**
-   * Invoked when an inside button of the evelator is pressed. The action
-   * event is forwarded to the remote listener of this
-   * <code>InsideListener</code>
+   * Invoked by the simulation engine after each time step. The current
+   * position(s) are copied into the buffer of this <code>PositionListener</code>
+   * to be forwarded to its remote listener.
    */
   public void actionPerformed(ActionEvent e) {
-    if (number == numberOfElevators) {
-      try {
-        newPositions = io.whereAre();
-      } catch (IllegalParamException ex) {;} // should not be
-      StringBuffer position = new StringBuffer();
-      boolean first = true;
-      for (int i = 0; i < newPositions.length; i++) {
-        if (newPositions[i] != oldPositions[i]) {
-          oldPositions[i] = newPositions[i];
-          if (first) {
-            position.append("f " + (i + 1) + " "+ String.valueOf(newPositions[i]));
-            first = false;
-          } else
-            position.append(eol + "f " + (i + 1) + " "+ String.valueOf(newPositions[i]));
-        }
+    FleetSnapshot snapshot = engine.getSnapshot();
+    double now = Elevators.clock.currentTimeMillis();
+    synchronized (this) {
+      for (int i = from; i < to; i++) latest[i - from] = snapshot.getPosition(i, now);
+      if (!fresh) {
+        source = e.getSource();
+        id = e.getID();
+        fresh = true;
+        notify();
       }
-      if (position.length() > 0) {
-        try {
-          listener.actionPerformed(new ActionEvent(e.getSource(), e.getID(), position.toString()));
-        } catch (RemoteException ex) {
-          removePositionListener();
+    }
+  }
+  /**
+   * Forwards an action event with the position(s) that have changed since
+   * they have been forwarded last time to the remote listener, until the
+   * listener fails.
+   */
+  public void run() {
+    try {
+      while (true) {
+        Object source;
+        int id;
+        synchronized (this) {
+          while (!fresh) wait();
+          System.arraycopy(latest, 0, positions, 0, positions.length);
+          source = this.source;
+          id = this.id;
+          fresh = false;
         }
-      }
-    } else {
-      try {
-        newPosition = io.whereIs(number + 1);
-      } catch (IllegalParamException ex) {;} // should not be
-      if (newPosition != oldPosition) {
-        oldPosition = newPosition;
-        String position = "f " + (number + 1) + " "+ String.valueOf(newPosition);
-        try {
-          listener.actionPerformed(new ActionEvent(e.getSource(), e.getID(), position));
-        } catch (RemoteException ex) {
-          removePositionListener();
+        position.setLength(0);
+        for (int i = 0; i < positions.length; i++) {
+          if (positions[i] != sent[i]) {
+            sent[i] = positions[i];
+            if (position.length() > 0) position.append(eol);
+            position.append("f ").append(from + i + 1).append(' ').append(positions[i]);
+          }
         }
+        if (position.length() > 0)
+          listener.actionPerformed(new ActionEvent(source, id, position.toString()));
       }
+    } catch (InterruptedException ex) {
+      ;
+    } catch (RemoteException ex) {
+      removePositionListener();
     }
   }
   private void removePositionListener() {
     System.err.println("Got RemoteException while calling back to a position listener");
     System.err.println("Removing the listener");
-    timer.removeActionListener(this);
+    if (engine != null) engine.removeActionListener(this);
     listener = null; // hopefully will be gc-ed also
   }
-}
\ No newline at end of file
+}
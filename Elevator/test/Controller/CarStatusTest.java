@@ -0,0 +1,151 @@
+package Controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of the time to serve a hall call estimated from a car status, from
+ * the position of the cabin and the dwell time left, and of the statuses with
+ * calls added for a round of dispatch. A floor takes 1000 ms and a stop 2000
+ * ms.
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class CarStatusTest {
+	private static final double FLOOR = 1000, STOP = 2000;
+
+	private static CarStatus status(int floor, int direction,
+			int destination, int stoppedOnFloor, StopSet stops) {
+		return new CarStatus(1, floor, floor, direction, destination,
+				stoppedOnFloor, -1, CarStatus.CLOSED, 0, false, stops,
+				new StopSet[0]);
+	}
+
+	@Test
+	public void idleGoesStraightThere() {
+		CarStatus idle = status(0, 0, -1, 0, new StopSet());
+		assertTrue(idle.isIdle());
+		assertEquals(5000, idle.estimate(5, -1, FLOOR, STOP), 0);
+		assertEquals(0, idle.estimate(0, 1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void idleWithAStopOnItsFloor() {
+		StopSet stops = new StopSet();
+		stops.add(3, 0);
+		CarStatus car = status(3, 0, -1, 3, stops);
+		assertEquals(2000 + STOP, car.estimate(5, 1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void aheadOnTheWay() {
+		StopSet stops = new StopSet();
+		stops.add(5, 0);
+		CarStatus car = status(2, 1, 8, -1, stops);
+		/*
+		 * four floors and the stop on 5
+		 */
+		assertEquals(4000 + STOP, car.estimate(6, 1, FLOOR, STOP), 0);
+		assertEquals(2000, car.estimate(4, 1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void oppositeDirectionOnTheWayBack() {
+		StopSet stops = new StopSet();
+		stops.add(5, 0);
+		CarStatus car = status(2, 1, 8, -1, stops);
+		/*
+		 * up to the destination on 8 and down to 4
+		 */
+		assertEquals(10000 + STOP, car.estimate(4, -1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void sameDirectionBehindAfterTurningTwice() {
+		StopSet stops = new StopSet();
+		stops.add(5, 0);
+		CarStatus car = status(2, 1, 8, -1, stops);
+		/*
+		 * up to 8, down to 1 and up again
+		 */
+		assertEquals(13000 + STOP, car.estimate(1, 1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void travelFromThePositionOfTheCabin() {
+		StopSet stops = new StopSet();
+		CarStatus car = new CarStatus(1, 2, 2.25, 1, 8, -1, -1,
+				CarStatus.CLOSED, 0, false, stops, new StopSet[0]);
+		assertEquals(3750, car.estimate(6, 1, FLOOR, STOP), 1e-9);
+		/*
+		 * up to 8 and back down to 4
+		 */
+		assertEquals(9750, car.estimate(4, -1, FLOOR, STOP), 1e-9);
+		CarStatus stopped = new CarStatus(1, 2, 2.5, 0, -1, -1, -1,
+				CarStatus.CLOSED, 0, true, stops, new StopSet[0]);
+		assertEquals(1500, stopped.estimate(1, 1, FLOOR, STOP), 1e-9);
+	}
+
+	@Test
+	public void openDoorWaitsOutTheDwell() {
+		CarStatus open = new CarStatus(1, 3, 3, 0, -1, 3, -1, CarStatus.OPEN,
+				1200, false, new StopSet(), new StopSet[0]);
+		assertEquals(1200, open.getDwell());
+		assertEquals(1200 + 2000, open.estimate(5, -1, FLOOR, STOP), 0);
+		CarStatus closing = new CarStatus(1, 3, 3, 0, -1, 3, -1,
+				CarStatus.CLOSING, 0, false, new StopSet(), new StopSet[0]);
+		assertEquals(2000, closing.estimate(5, -1, FLOOR, STOP), 0);
+		StopSet stops = new StopSet();
+		stops.add(6, 0);
+		CarStatus onTheWay = new CarStatus(1, 3, 3, 1, 6, 3, -1,
+				CarStatus.OPENING, 2000, false, stops, new StopSet[0]);
+		assertEquals(2000 + 2000, onTheWay.estimate(5, 1, FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void moreStopsCostMore() {
+		StopSet stops = new StopSet();
+		stops.add(3, 0);
+		CarStatus one = status(0, 1, 3, -1, stops);
+		CarStatus two = one.withStop(5, 1);
+		assertTrue(two.estimate(7, 1, FLOOR, STOP) > one.estimate(7, 1,
+				FLOOR, STOP));
+		assertEquals(one.estimate(2, 1, FLOOR, STOP), two.estimate(2, 1,
+				FLOOR, STOP), 0);
+	}
+
+	@Test
+	public void withStopLeavesTheStatusAlone() {
+		StopSet stops = new StopSet();
+		stops.add(3, 0);
+		CarStatus car = new CarStatus(7, 0, 0, 0, -1, 0, 4, CarStatus.CLOSED,
+				0, false, stops, new StopSet[0]);
+		CarStatus next = car.withStop(6, -1);
+		assertTrue(next.hasStop(6, -1));
+		assertFalse(car.hasStop(6, -1));
+		assertEquals(2, next.getSizeOfListOfTasks());
+		assertEquals(1, car.getSizeOfListOfTasks());
+		assertEquals(7, next.getSequence());
+		assertEquals(4, car.getParkingFloor());
+		assertEquals(-1, next.getParkingFloor());
+		assertEquals(0, next.getPosition(), 0);
+		assertSame(next, next.withStop(6, -1));
+	}
+
+	@Test
+	public void withDestinationCallGroupsRiders() {
+		CarStatus car = status(0, 0, -1, 0, new StopSet());
+		assertEquals(2, car.newStops(2, 7));
+		CarStatus next = car.withDestinationCall(2, 7);
+		assertEquals(0, next.newStops(2, 7));
+		assertEquals(1, next.newStops(2, 5));
+		assertEquals(2, car.newStops(2, 7));
+		assertSame(next, next.withDestinationCall(2, 7));
+		assertEquals(0, next.getLoad());
+	}
+}
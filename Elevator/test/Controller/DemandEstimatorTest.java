@@ -0,0 +1,107 @@
+package Controller;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests of the decayed rates, the daily profile rolled at the end of each
+ * time-of-day bucket, and the traffic mode
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class DemandEstimatorTest {
+	private static final long HOUR = DemandEstimator.BUCKET,
+			DAY = DemandEstimator.DAY;
+
+	@Test
+	public void rateDecays() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(3, 1, 0);
+		double one = 1 / DemandEstimator.TAU;
+		assertEquals(one, demand.rate(3, 1, 0), 1e-15);
+		assertEquals(one / Math.E, demand.rate(3, 1,
+				(long) DemandEstimator.TAU), 1e-15);
+		assertEquals(0, demand.rate(3, -1, 0), 0);
+		demand.record(3, 1, 0);
+		assertEquals(2 * one, demand.rate(3, 1, 0), 1e-15);
+	}
+
+	@Test
+	public void callsOutsideTheBuildingAreIgnored() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(10, 1, 0);
+		demand.record(-1, 1, 0);
+		assertEquals(DemandEstimator.IDLE, demand.mode(0));
+	}
+
+	@Test
+	public void bucketOfTheTimeOfDay() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		assertEquals(8, demand.bucketOf(0));
+		assertEquals(9, demand.bucketOf(HOUR));
+		assertEquals(0, demand.bucketOf(16 * HOUR));
+		assertEquals(8, demand.bucketOf(DAY + 1));
+	}
+
+	@Test
+	public void profileRollsAtTheEndOfTheBucket() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(0, 1, 0);
+		demand.record(0, 1, HOUR / 2);
+		demand.record(0, 1, HOUR - 1);
+		assertEquals(-1, demand.expectedRate(0, 1, 0), 0);
+		/*
+		 * the first call of the next bucket folds the last one in
+		 */
+		demand.record(5, -1, HOUR);
+		assertEquals(3.0 / HOUR, demand.expectedRate(0, 1, DAY), 1e-18);
+		assertEquals(0, demand.expectedRate(5, -1, DAY), 0);
+		assertEquals(-1, demand.expectedRate(5, -1, HOUR), 0);
+		/*
+		 * the next day counts with the weight ALPHA
+		 */
+		demand.record(0, 1, DAY);
+		demand.record(0, 1, DAY + HOUR);
+		double a = DemandEstimator.ALPHA;
+		assertEquals(a * 1.0 / HOUR + (1 - a) * 3.0 / HOUR, demand
+				.expectedRate(0, 1, 2 * DAY), 1e-18);
+	}
+
+	@Test
+	public void idleWithoutCalls() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		assertEquals(DemandEstimator.IDLE, demand.mode(0));
+		demand.record(4, 1, 0);
+		assertEquals(DemandEstimator.IDLE, demand
+				.mode(10 * (long) DemandEstimator.TAU));
+	}
+
+	@Test
+	public void upPeakFromTheLobby() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(0, 1, 0);
+		demand.record(0, 1, 0);
+		demand.record(4, -1, 0);
+		assertEquals(DemandEstimator.UP_PEAK, demand.mode(0));
+	}
+
+	@Test
+	public void downPeak() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(4, -1, 0);
+		demand.record(7, -1, 0);
+		demand.record(9, -1, 0);
+		demand.record(2, 1, 0);
+		assertEquals(DemandEstimator.DOWN_PEAK, demand.mode(0));
+	}
+
+	@Test
+	public void interfloor() {
+		DemandEstimator demand = new DemandEstimator(10, 8 * HOUR);
+		demand.record(3, 1, 0);
+		demand.record(6, -1, 0);
+		assertEquals(DemandEstimator.INTERFLOOR, demand.mode(0));
+	}
+}
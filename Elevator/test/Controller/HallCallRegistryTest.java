@@ -0,0 +1,114 @@
+package Controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of the compare-and-set transitions of the hall call registry:
+ * register, assign, offer, hand over, keep and release
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class HallCallRegistryTest {
+
+	@Test
+	public void duplicatePressIsRejected() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		HallCallRegistry.HallCall call = registry.register(4, 1, 100);
+		assertNotNull(call);
+		assertEquals(HallCallRegistry.UNASSIGNED, call.getOwner());
+		assertNull(registry.register(4, 1, 200));
+		assertNotNull(registry.register(4, -1, 200));
+		assertEquals(100, registry.get(4, 1).getTime());
+	}
+
+	@Test
+	public void assignFailsOnAStaleCall() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		HallCallRegistry.HallCall call = registry.register(4, 1, 100);
+		HallCallRegistry.HallCall assigned = registry.assign(call, 2, 150);
+		assertNotNull(assigned);
+		assertEquals(2, registry.ownerOf(4, 1));
+		assertEquals(150, assigned.getAssignedTime());
+		assertEquals(100, assigned.getTime());
+		/*
+		 * the call has changed since it was read
+		 */
+		assertNull(registry.assign(call, 3, 160));
+		assertEquals(2, registry.ownerOf(4, 1));
+	}
+
+	@Test
+	public void onlyTheOwnerReleases() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		registry.assign(registry.register(4, 1, 100), 2, 100);
+		assertFalse(registry.release(4, 1, 1));
+		assertFalse(registry.release(4, -1, 2));
+		assertTrue(registry.release(4, 1, 2));
+		assertNull(registry.get(4, 1));
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.ownerOf(4, 1));
+		assertFalse(registry.release(4, 1, 2));
+		assertNotNull(registry.register(4, 1, 300));
+	}
+
+	@Test
+	public void offeredCallIsHandedOver() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		HallCallRegistry.HallCall call = registry.assign(registry.register(
+				6, -1, 100), 1, 100);
+		HallCallRegistry.HallCall offered = registry.offer(call, 2, 500);
+		assertNotNull(offered);
+		assertEquals(1, offered.getOwner());
+		assertEquals(2, offered.getOfferedTo());
+		assertNull(registry.offer(call, 3, 500));
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.handOver(6, -1, 2));
+		assertEquals(2, registry.handOver(6, -1, 1));
+		assertEquals(2, registry.ownerOf(6, -1));
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.get(6, -1)
+				.getOfferedTo());
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.handOver(6, -1, 2));
+	}
+
+	@Test
+	public void ownerKeepsAnOfferedCall() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		HallCallRegistry.HallCall call = registry.assign(registry.register(
+				6, -1, 100), 1, 100);
+		assertFalse(registry.keep(6, -1, 1));
+		registry.offer(call, 2, 500);
+		assertTrue(registry.keep(6, -1, 1));
+		assertEquals(1, registry.ownerOf(6, -1));
+		assertEquals(500, registry.get(6, -1).getAssignedTime());
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.handOver(6, -1, 1));
+	}
+
+	@Test
+	public void ownerServesAnOfferedCall() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		HallCallRegistry.HallCall call = registry.assign(registry.register(
+				6, -1, 100), 1, 100);
+		registry.offer(call, 2, 500);
+		assertTrue(registry.release(6, -1, 1));
+		assertEquals(HallCallRegistry.UNASSIGNED, registry.handOver(6, -1, 1));
+		assertNull(registry.get(6, -1));
+	}
+
+	@Test
+	public void callsByOwner() {
+		HallCallRegistry registry = new HallCallRegistry(10);
+		registry.assign(registry.register(1, 1, 0), 1, 0);
+		registry.assign(registry.register(5, -1, 0), 2, 0);
+		registry.assign(registry.register(5, 1, 0), 1, 0);
+		registry.register(9, -1, 0);
+		assertEquals(4, registry.getCalls(-1).size());
+		assertEquals(2, registry.getCalls(1).size());
+		assertEquals(1, registry.getCalls(2).size());
+		assertEquals(1, registry.getCalls(HallCallRegistry.UNASSIGNED).size());
+	}
+}
@@ -0,0 +1,131 @@
+package Controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of the bitsets of stops and of the SCAN (LOOK) order of the next stop
+ *
+ * @author Ivan Pedersen, Alfred Andersson
+ *
+ */
+public class StopSetTest {
+
+	@Test
+	public void addContainsRemove() {
+		StopSet stops = new StopSet();
+		assertTrue(stops.isEmpty());
+		assertTrue(stops.add(3, 1));
+		assertFalse(stops.add(3, 1));
+		assertTrue(stops.add(3, -1));
+		assertTrue(stops.add(3, 0));
+		assertEquals(3, stops.size());
+		assertTrue(stops.contains(3, 1));
+		assertFalse(stops.contains(4, 1));
+		assertTrue(stops.remove(3, 1));
+		assertFalse(stops.remove(3, 1));
+		assertFalse(stops.contains(3, 1));
+		assertTrue(stops.containsAny(3, StopSet.DOWN | StopSet.CAR));
+		assertEquals(2, stops.size());
+	}
+
+	@Test
+	public void floorsAboveOneWord() {
+		StopSet stops = new StopSet();
+		stops.add(2, 0);
+		stops.add(100, -1);
+		stops.add(200, 1);
+		assertTrue(stops.contains(100, -1));
+		assertEquals(100, stops.higher(2, StopSet.ANY));
+		assertEquals(200, stops.higher(100, StopSet.ANY));
+		assertEquals(-1, stops.higher(200, StopSet.ANY));
+		assertEquals(100, stops.lower(200, StopSet.ANY));
+		assertEquals(2, stops.lower(100, StopSet.ANY));
+		assertEquals(200, stops.lower(Integer.MAX_VALUE, StopSet.ANY));
+		assertEquals(-1, stops.higher(2, StopSet.CAR));
+		assertEquals(100, stops.lower(Integer.MAX_VALUE, StopSet.DOWN));
+	}
+
+	@Test
+	public void removeFloorAndCount() {
+		StopSet stops = new StopSet();
+		stops.add(4, 1);
+		stops.add(4, 0);
+		stops.add(6, -1);
+		stops.add(9, 0);
+		assertEquals(3, stops.count(0, 10, StopSet.ANY));
+		assertEquals(2, stops.count(10, 5, StopSet.ANY));
+		assertEquals(2, stops.count(0, 10, StopSet.CAR));
+		assertTrue(stops.removeFloor(4));
+		assertFalse(stops.removeFloor(4));
+		assertEquals(2, stops.size());
+		stops.clear();
+		assertTrue(stops.isEmpty());
+		assertEquals(-1, stops.higher(-1, StopSet.ANY));
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		StopSet stops = new StopSet();
+		stops.add(5, 1);
+		StopSet copy = new StopSet(stops);
+		copy.add(70, 0);
+		copy.remove(5, 1);
+		assertTrue(stops.contains(5, 1));
+		assertFalse(stops.contains(70, 0));
+		assertEquals(1, stops.size());
+	}
+
+	@Test
+	public void nextStopGoingUp() {
+		StopSet stops = new StopSet();
+		stops.add(2, -1);
+		stops.add(5, 0);
+		stops.add(7, 1);
+		stops.add(9, -1);
+		stops.add(8, -1);
+		/*
+		 * served on the way up, then the farthest call down ahead, then down
+		 */
+		assertEquals(5, stops.nextStop(3, 1));
+		stops.remove(5, 0);
+		assertEquals(7, stops.nextStop(5, 1));
+		stops.remove(7, 1);
+		assertEquals(9, stops.nextStop(7, 1));
+		stops.remove(9, -1);
+		assertEquals(8, stops.nextStop(9, -1));
+		stops.remove(8, -1);
+		assertEquals(2, stops.nextStop(8, -1));
+		stops.remove(2, -1);
+		assertEquals(-1, stops.nextStop(2, -1));
+	}
+
+	@Test
+	public void nextStopGoingDownTurnsForCallsBelow() {
+		StopSet stops = new StopSet();
+		stops.add(1, 1);
+		stops.add(3, 1);
+		stops.add(6, 0);
+		assertEquals(1, stops.nextStop(5, -1));
+		stops.remove(1, 1);
+		assertEquals(3, stops.nextStop(1, 1));
+		stops.remove(3, 1);
+		assertEquals(6, stops.nextStop(3, 1));
+	}
+
+	@Test
+	public void nextStopWhenIdle() {
+		StopSet stops = new StopSet();
+		stops.add(2, 0);
+		stops.add(7, 0);
+		assertEquals(7, stops.nextStop(5, 0));
+		assertEquals(2, stops.nextStop(4, 0));
+		stops.clear();
+		stops.add(5, 1);
+		assertEquals(5, stops.nextStop(5, 0));
+		assertEquals(5, stops.nextStop(5, -1));
+	}
+}
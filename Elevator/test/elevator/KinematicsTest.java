@@ -0,0 +1,108 @@
+package elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Title:        Green Elevator
+ * Description:  Green Elevator, 2G1915
+ * Copyright:    Copyright (c) 2001
+ * Company:      IMIT/KTH
+ * @author Vlad Vlassov
+ * @version 1.0
+ */
+/**
+ * Tests of the closed-form cabin motion, mainly the brake point of a segment
+ * with a stop position. The velocity is 0.001 floor units per millisecond
+ * (one floor a second) and the acceleration, where finite, 1e-6, so the ramp
+ * takes 1000 ms and covers half a floor.
+ * @author Vlad Vlassov, IMIT/KTH, Stockholm, Sweden
+ * @version 1.0
+ * @see     elevator.Kinematics
+ */
+public class KinematicsTest {
+  private static final double V = 0.001, A = 1e-6, INF = Double.POSITIVE_INFINITY;
+  private static final double EPS = 1e-9;
+
+  @Test
+  public void rampTime() {
+    assertEquals(1000, Kinematics.rampTime(0, V, A), EPS);
+    assertEquals(1000, Kinematics.rampTime(V, 0, A), EPS);
+    assertEquals(0, Kinematics.rampTime(V, V, A), EPS);
+    assertEquals(0, Kinematics.rampTime(0, V, INF), EPS);
+  }
+
+  @Test
+  public void positionAlongTheRamp() {
+    assertEquals(0.5, Kinematics.position(0, 0, V, A, 1000), EPS);
+    assertEquals(1.5, Kinematics.position(0, 0, V, A, 2000), EPS);
+    assertEquals(V, Kinematics.velocity(0, V, A, 1500), EPS);
+    assertEquals(2.0, Kinematics.position(0, 0, V, INF, 2000), EPS);
+  }
+
+  @Test
+  public void timeToReachAPosition() {
+    // half a floor on the ramp, then a floor a second
+    assertEquals(1000, Kinematics.timeToReach(0, 0, V, A, 0.5, 0), 1e-6);
+    assertEquals(5500, Kinematics.timeToReach(0, 0, V, A, 5, 0), 1e-6);
+    assertEquals(5500, Kinematics.timeToReach(0, 0, V, A, 5, 2000), 1e-6);
+    assertEquals(INF, Kinematics.timeToReach(0, 0, V, A, -1, 0), 0);
+  }
+
+  @Test
+  public void noStopNoBraking() {
+    assertEquals(INF, Kinematics.brakeTime(0, 0, V, A, Double.NaN), 0);
+    assertEquals(INF, Kinematics.brakeTime(0, 0, 0, A, 5), 0);
+  }
+
+  @Test
+  public void brakeAtOnceWithInfiniteAcceleration() {
+    assertEquals(5000, Kinematics.brakeTime(0, 0, V, INF, 5), EPS);
+    assertEquals(3000, Kinematics.brakeTime(5, 0, -V, INF, 2), EPS);
+    assertEquals(0, Kinematics.brakeTime(5, V, V, INF, 5), EPS);
+    assertEquals(5.0, Kinematics.position(0, 0, V, INF, 5, 9000), EPS);
+  }
+
+  @Test
+  public void brakePointAfterCruising() {
+    // half a floor to accelerate, 4 floors of cruise, half a floor to brake
+    assertEquals(5000, Kinematics.brakeTime(0, 0, V, A, 5), 1e-6);
+    assertEquals(6000, Kinematics.arrivalTime(0, 0, V, A, 5), 1e-6);
+    assertEquals(4.5, Kinematics.position(0, 0, V, A, 5, 5000), 1e-9);
+    assertEquals(5.0, Kinematics.position(0, 0, V, A, 5, 6000), 1e-9);
+    assertEquals(0.0, Kinematics.velocity(0, 0, V, A, 5, 6000), 1e-12);
+    assertEquals(5.0, Kinematics.position(0, 0, V, A, 5, 60000), 1e-9);
+  }
+
+  @Test
+  public void brakePointGoingDown() {
+    assertEquals(5000, Kinematics.brakeTime(6, 0, -V, A, 1), 1e-6);
+    assertEquals(1.0, Kinematics.position(6, 0, -V, A, 1, 6000), 1e-9);
+  }
+
+  @Test
+  public void brakePointBeforeReachingFullSpeed() {
+    // a quarter of a floor up, a quarter down
+    double t = Math.sqrt(0.5 / A);
+    assertEquals(t, Kinematics.brakeTime(0, 0, V, A, 0.5), 1e-6);
+    assertEquals(2 * t, Kinematics.arrivalTime(0, 0, V, A, 0.5), 1e-6);
+    assertEquals(0.5, Kinematics.position(0, 0, V, A, 0.5, 2 * t), 1e-9);
+  }
+
+  @Test
+  public void brakeAtOnceWhenTooClose() {
+    // the braking distance at full speed is half a floor
+    assertEquals(0, Kinematics.brakeTime(0, V, V, A, 0.4), 0);
+    assertEquals(0, Kinematics.brakeTime(0, V, V, A, 0.5), 1e-9);
+    assertTrue(Kinematics.brakeTime(0, V, V, A, 0.6) > 0);
+  }
+
+  @Test
+  public void timeToReachTheStop() {
+    assertEquals(6000, Kinematics.timeToReach(0, 0, V, A, 5, 5, 0), 1e-3);
+    assertEquals(INF, Kinematics.timeToReach(0, 0, V, A, 5, 6, 0), 0);
+    assertEquals(INF, Kinematics.timeToReach(0, 0, V, INF, 5, 6, 0), 0);
+  }
+}